@@ -0,0 +1,102 @@
+package bench;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.config.ClasspathYamlConfig;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import hazel.DocSerializableFactory;
+import hazel.DocumentWarmUp;
+import hazel.FileMapStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Embedded cluster for the benchmarks.
+ * Members run inside the benchmark JVM with the assignment's hazelcast.yaml, the benchmarks talk to them through a client,
+ * so every operation is serialized and sent over the loopback (and backed up) as it would be in production.
+ */
+public class BenchCluster {
+
+    private final List<HazelcastInstance> members = new ArrayList<>();
+    private final HazelcastInstance client;
+
+    private BenchCluster(int memberCount) {
+        // Members log every fetch to stdout, which would only measure the console
+        System.setProperty("hazelcast.logging.type", "none");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Config memberConfig = new ClasspathYamlConfig("hazelcast.yaml");
+        isolateStorage(memberConfig);
+        for (int i = 0; i < memberCount; i++)
+            members.add(Hazelcast.newHazelcastInstance(memberConfig));
+
+        ClientConfig config = new ClientConfig();
+        config.getSerializationConfig()
+                .addDataSerializableFactory(DocSerializableFactory.FACTORY_ID, new DocSerializableFactory());
+        client = HazelcastClient.newHazelcastClient(config);
+    }
+
+    /**
+     * Every cluster starts empty - documents persisted by previous runs would turn cold fetches into warm ones.
+     */
+    private static void isolateStorage(Config config) {
+        Path storage;
+        try {
+            storage = Files.createTempDirectory("bench-cluster");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (MapConfig mapConfig : config.getMapConfigs().values()) {
+            MapStoreConfig storeConfig = mapConfig.getMapStoreConfig();
+            if (storeConfig.isEnabled())
+                storeConfig.setProperty(FileMapStore.DIR_PROPERTY, storage.resolve("store").toString());
+        }
+    }
+
+    public static BenchCluster start(int memberCount) {
+        return new BenchCluster(memberCount);
+    }
+
+    public HazelcastInstance client() {
+        return client;
+    }
+
+    public HazelcastInstance member(int index) {
+        return members.get(index);
+    }
+
+    /**
+     * Generate all given documents (in parallel), so that the benchmarks only measure the warm paths.
+     */
+    public void warmUp(Collection<String> docNames) {
+        DocumentWarmUp.warmUp(client, docNames, progress -> {}).toCompletableFuture().join();
+    }
+
+    public void shutdown() {
+        client.shutdown();
+        Hazelcast.shutdownAll();
+    }
+
+    /**
+     * Wait for all the operations, used to fill up the cluster quickly in setups.
+     */
+    public static void joinAll(List<? extends CompletionStage<?>> operations) {
+        CompletableFuture.allOf(operations.stream()
+                .map(CompletionStage::toCompletableFuture)
+                .toArray(CompletableFuture[]::new)).join();
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import hazel.AsyncDocClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold path of fetching documents - `fetchers` concurrent fetches of documents which were never generated,
+ * either all of the same document (they should share a single generation) or of distinct documents.
+ * Every shot takes at least the generation time of a document (3 seconds), anything above that is overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ColdFetchBenchmark {
+
+    @Param({"1", "16", "64"})
+    public int fetchers;
+
+    @Param({"true", "false"})
+    public boolean sameDocument;
+
+    private BenchCluster cluster;
+    private AsyncDocClient docClient;
+    private int shot;
+
+    @Setup
+    public void setup() {
+        cluster = BenchCluster.start(2);
+        docClient = new AsyncDocClient(cluster.client(), "bench", false, fetchers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    @Benchmark
+    public void coldFetch() {
+        shot++;
+        List<CompletionStage<?>> fetches = new ArrayList<>();
+        for (int i = 0; i < fetchers; i++)
+            fetches.add(docClient.fetchDocument(sameDocument ? "cold" + shot : "cold" + shot + "-" + i));
+        BenchCluster.joinAll(fetches);
+    }
+}
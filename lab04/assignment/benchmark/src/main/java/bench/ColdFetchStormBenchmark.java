@@ -0,0 +1,103 @@
+package bench;
+
+import common.Document;
+import common.ViewRanking;
+import hazel.AsyncDocClient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster flooded by cold fetches - `coldFetchers` fetches of documents never generated before are kept in flight
+ * all the time (every one of them takes the generation time). Meanwhile, warm fetches and top viewed queries
+ * (a task of the default executor) should take about as long as in an idle cluster (coldFetchers = 0),
+ * and the number of cold fetches completed per second is reported as the auxiliary counter coldFetches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ColdFetchStormBenchmark {
+
+    private static final int DOC_COUNT = 100;
+
+    @Param({"0", "64", "256"})
+    public int coldFetchers;
+
+    private BenchCluster cluster;
+    private AsyncDocClient docClient;
+    private AsyncDocClient coldClient;
+    private final List<String> docNames = new ArrayList<>();
+    private final AtomicLong coldDocs = new AtomicLong();
+    private final AtomicLong coldDone = new AtomicLong();
+    private volatile boolean storming;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class ColdCounter {
+        private long lastDone;
+        public long coldFetches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            coldFetches = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        cluster = BenchCluster.start(2);
+        for (int i = 0; i < DOC_COUNT; i++)
+            docNames.add("doc" + i);
+        cluster.warmUp(docNames);
+        docClient = new AsyncDocClient(cluster.client(), "bench", false, 16);
+        coldClient = new AsyncDocClient(cluster.client(), "storm", false, Math.max(1, coldFetchers));
+
+        storming = true;
+        for (int i = 0; i < coldFetchers; i++)
+            coldFetch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        storming = false;
+        cluster.shutdown();
+    }
+
+    private void coldFetch() {
+        // Each chain holds a single in-flight slot of coldClient, which is freed before the next fetch starts
+        coldClient.fetchDocument("storm" + coldDocs.incrementAndGet()).whenComplete((document, t) -> {
+            coldDone.incrementAndGet();
+            if (storming)
+                coldFetch();
+        });
+    }
+
+    private String randomDoc() {
+        return docNames.get(ThreadLocalRandom.current().nextInt(DOC_COUNT));
+    }
+
+    private void count(ColdCounter counter) {
+        long done = coldDone.get();
+        counter.coldFetches += done - counter.lastDone;
+        counter.lastDone = done;
+    }
+
+    @Benchmark
+    public Document warmFetch(ColdCounter counter) {
+        count(counter);
+        return docClient.fetchDocument(randomDoc()).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public ViewRanking topViewed(ColdCounter counter) {
+        count(counter);
+        return docClient.topViewed(10).toCompletableFuture().join();
+    }
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import com.hazelcast.core.IExecutorService;
+import common.DocKey;
+import common.Document;
+import hazel.FetchDocTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static common.Constants.FETCH_EXECUTOR;
+
+/**
+ * Warm path of fetching a document - FetchDocTask on the owner of an already generated document
+ * (read the document and count the view, select it for the user).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FetchBenchmark {
+
+    private static final int DOC_COUNT = 100;
+
+    @Param({"1", "2"})
+    public int members;
+
+    private BenchCluster cluster;
+    private IExecutorService executor;
+    private final List<String> docNames = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        cluster = BenchCluster.start(members);
+        for (int i = 0; i < DOC_COUNT; i++)
+            docNames.add("doc" + i);
+        cluster.warmUp(docNames);
+        executor = cluster.client().getExecutorService(FETCH_EXECUTOR);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    private String randomDoc() {
+        return docNames.get(ThreadLocalRandom.current().nextInt(DOC_COUNT));
+    }
+
+    @Benchmark
+    public Document warmFetch() throws Exception {
+        String docName = randomDoc();
+        return executor.submitToKeyOwner(new FetchDocTask("bench", docName), new DocKey(docName)).get();
+    }
+
+    /**
+     * Fetch of a client with near cache, which only needs the view to be counted.
+     */
+    @Benchmark
+    public Document warmFetchWithoutDocument() throws Exception {
+        String docName = randomDoc();
+        return executor.submitToKeyOwner(new FetchDocTask("bench", docName, false), new DocKey(docName)).get();
+    }
+}
@@ -0,0 +1,107 @@
+package bench;
+
+import com.hazelcast.map.IMap;
+import common.*;
+import hazel.CommentLog;
+import hazel.processor.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static common.Constants.*;
+
+/**
+ * Favourite and comment operations with growing number of favourites of the user and comments of the document.
+ * None of them should get slower with the size of the list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListSizeBenchmark {
+
+    private static final String USER = "bench";
+    private static final String DOC = "doc";
+    private static final int PAGE_SIZE = 10;
+    // Number of setup operations sent at once
+    private static final int SETUP_BATCH = 256;
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private BenchCluster cluster;
+    private IMap<DocKey, Integer> commentCountMap;
+    private IMap<UserKey, Favourites> faveMap;
+
+    private final UserKey userKey = new UserKey(USER);
+    private final DocKey docKey = new DocKey(DOC);
+    private final Comment comment = new Comment("Benchmark comment", USER);
+
+    @Setup
+    public void setup() {
+        cluster = BenchCluster.start(2);
+        commentCountMap = cluster.client().getMap(DOC_COMM_COUNTS_MAP);
+        faveMap = cluster.client().getMap(FAVE_DOCS_MAP);
+
+        List<CompletionStage<?>> operations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            operations.add(faveMap.submitToKey(userKey, new AddToFavesProcessor(USER, "fave" + i)));
+            operations.add(CommentLog.append(cluster.client(), DOC, comment));
+            if (operations.size() >= SETUP_BATCH) {
+                BenchCluster.joinAll(operations);
+                operations.clear();
+            }
+        }
+        BenchCluster.joinAll(operations);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    /**
+     * Add and remove of the same favourite, so that the list doesn't grow (two operations per invocation).
+     */
+    @Benchmark
+    public Boolean addAndRemoveFavourite() {
+        faveMap.executeOnKey(userKey, new AddToFavesProcessor(USER, DOC));
+        return faveMap.executeOnKey(userKey, new RemoveFromFavesProcessor(USER, DOC));
+    }
+
+    /**
+     * The last viewed document is not a favourite, so the favourites' cursor is moved.
+     */
+    @Benchmark
+    public String nextFavourite() {
+        return faveMap.executeOnKey(userKey, new GetNextFaveProcessor(USER, DOC));
+    }
+
+    @Benchmark
+    public List<String> middleFavouritesPage() {
+        return faveMap.executeOnKey(userKey, new GetFavesPageProcessor(USER, "fave" + size / 2, PAGE_SIZE));
+    }
+
+    /**
+     * Appends to the comment log, which grows during the benchmark (the cost of an append doesn't depend on its length).
+     */
+    @Benchmark
+    public Boolean addComment() {
+        return CommentLog.append(cluster.client(), DOC, comment).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public CommentPage latestComments() {
+        return commentCountMap.executeOnKey(docKey, GetCommentsPageProcessor.latest(DOC, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public CommentPage middleComments() {
+        return commentCountMap.executeOnKey(docKey, GetCommentsPageProcessor.fromOffset(DOC, size / 2, PAGE_SIZE));
+    }
+}
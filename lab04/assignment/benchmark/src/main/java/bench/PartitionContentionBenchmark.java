@@ -0,0 +1,70 @@
+package bench;
+
+import com.hazelcast.map.IMap;
+import common.*;
+import hazel.CommentLog;
+import hazel.processor.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static common.Constants.*;
+
+/**
+ * Readers of long comment pages competing with view counting of the same document (i.e. on the same partition thread).
+ * GetCommentsPageProcessor is offloaded from the partition thread, so compared to the uncontended incrementViews
+ * of ProcessorBenchmark, `writer` should only pay for the shared client connection, not for the readers' processing.
+ */
+@State(Scope.Group)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartitionContentionBenchmark {
+
+    private static final String DOC = "doc";
+    private static final int COMMENT_COUNT = 2000;
+    private static final int PAGE_SIZE = 1000;
+
+    private BenchCluster cluster;
+    private IMap<DocKey, Integer> viewMap;
+    private IMap<DocKey, Integer> commentCountMap;
+
+    private final DocKey docKey = new DocKey(DOC);
+
+    @Setup
+    public void setup() {
+        cluster = BenchCluster.start(2);
+        viewMap = cluster.client().getMap(DOC_VIEWS_MAP);
+        commentCountMap = cluster.client().getMap(DOC_COMM_COUNTS_MAP);
+
+        Comment comment = new Comment("Benchmark comment", "bench");
+        List<CompletionStage<?>> comments = new ArrayList<>();
+        for (int i = 0; i < COMMENT_COUNT; i++)
+            comments.add(CommentLog.append(cluster.client(), DOC, comment));
+        BenchCluster.joinAll(comments);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public CommentPage reader() {
+        return commentCountMap.executeOnKey(docKey, GetCommentsPageProcessor.latest(DOC, PAGE_SIZE));
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Boolean writer() {
+        return viewMap.executeOnKey(docKey, new IncrementViewsProcessor(DOC));
+    }
+}
@@ -0,0 +1,151 @@
+package bench;
+
+import com.hazelcast.map.IMap;
+import common.*;
+import hazel.CommentLog;
+import hazel.processor.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static common.Constants.*;
+
+/**
+ * Every processor of hazel.processor executed by the client on a single key (AddViewsProcessor on a batch of keys).
+ * The user has FAVOURITE_COUNT favourites and the document has COMMENT_COUNT comments, see ListSizeBenchmark for how
+ * the list operations scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProcessorBenchmark {
+
+    private static final String USER = "bench";
+    private static final String DOC = "doc0";
+    private static final int BATCH_DOC_COUNT = 16;
+    private static final int FAVOURITE_COUNT = 100;
+    private static final int COMMENT_COUNT = 100;
+    private static final int PAGE_SIZE = 10;
+
+    private BenchCluster cluster;
+    private IMap<DocKey, Integer> viewMap;
+    private IMap<DocKey, Integer> commentCountMap;
+    private IMap<UserKey, String> lastDocMap;
+    private IMap<UserKey, Favourites> faveMap;
+
+    private final UserKey userKey = new UserKey(USER);
+    private final DocKey docKey = new DocKey(DOC);
+    private final Set<DocKey> batchKeys = new HashSet<>();
+    private final Map<String, Integer> batchDeltas = new HashMap<>();
+    private final Comment comment = new Comment("Benchmark comment", USER);
+
+    @Setup
+    public void setup() {
+        cluster = BenchCluster.start(2);
+        viewMap = cluster.client().getMap(DOC_VIEWS_MAP);
+        commentCountMap = cluster.client().getMap(DOC_COMM_COUNTS_MAP);
+        lastDocMap = cluster.client().getMap(LAST_DOCS_MAP);
+        faveMap = cluster.client().getMap(FAVE_DOCS_MAP);
+
+        List<String> docNames = new ArrayList<>();
+        for (int i = 0; i < BATCH_DOC_COUNT; i++) {
+            docNames.add("doc" + i);
+            batchKeys.add(new DocKey("doc" + i));
+            batchDeltas.put("doc" + i, 1);
+        }
+        cluster.warmUp(docNames);
+
+        lastDocMap.executeOnKey(userKey, new SetUserLastViewedProcessor(USER, DOC));
+        for (int i = 0; i < FAVOURITE_COUNT; i++)
+            faveMap.executeOnKey(userKey, new AddToFavesProcessor(USER, "fave" + i));
+        List<CompletionStage<?>> comments = new ArrayList<>();
+        for (int i = 0; i < COMMENT_COUNT; i++)
+            comments.add(CommentLog.append(cluster.client(), DOC, comment));
+        BenchCluster.joinAll(comments);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cluster.shutdown();
+    }
+
+    // Documents
+
+    @Benchmark
+    public Integer getViews() {
+        return viewMap.executeOnKey(docKey, new GetViewsProcessor(DOC));
+    }
+
+    @Benchmark
+    public Boolean incrementViews() {
+        return viewMap.executeOnKey(docKey, new IncrementViewsProcessor(DOC));
+    }
+
+    @Benchmark
+    public Document viewDocument() {
+        return viewMap.executeOnKey(docKey, new ViewDocumentProcessor(DOC));
+    }
+
+    @Benchmark
+    public Map<DocKey, Integer> addViewsBatch() {
+        return viewMap.executeOnKeys(batchKeys, new AddViewsProcessor(batchDeltas));
+    }
+
+    // Users
+
+    @Benchmark
+    public String getUserLastViewed() {
+        return lastDocMap.executeOnKey(userKey, new GetUserLastViewedProcessor(USER));
+    }
+
+    @Benchmark
+    public Boolean setUserLastViewed() {
+        return lastDocMap.executeOnKey(userKey, new SetUserLastViewedProcessor(USER, DOC));
+    }
+
+    // Favourites
+
+    /**
+     * Add and remove of the same favourite, so that the list doesn't grow (two operations per invocation).
+     */
+    @Benchmark
+    public Boolean addAndRemoveFavourite() {
+        faveMap.executeOnKey(userKey, new AddToFavesProcessor(USER, DOC));
+        return faveMap.executeOnKey(userKey, new RemoveFromFavesProcessor(USER, DOC));
+    }
+
+    @Benchmark
+    public String nextFavourite() {
+        return faveMap.executeOnKey(userKey, new GetNextFaveProcessor(USER, DOC));
+    }
+
+    @Benchmark
+    public List<String> favouritesPage() {
+        return faveMap.executeOnKey(userKey, new GetFavesPageProcessor(USER, null, PAGE_SIZE));
+    }
+
+    // Comments
+
+    /**
+     * Appends to the comment log, which grows during the benchmark (the cost of an append doesn't depend on its length).
+     */
+    @Benchmark
+    public Boolean addComment() {
+        return CommentLog.append(cluster.client(), DOC, comment).toCompletableFuture().join();
+    }
+
+    @Benchmark
+    public CommentPage latestComments() {
+        return commentCountMap.executeOnKey(docKey, GetCommentsPageProcessor.latest(DOC, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public CommentPage firstComments() {
+        return commentCountMap.executeOnKey(docKey, GetCommentsPageProcessor.fromOffset(DOC, 0, PAGE_SIZE));
+    }
+}
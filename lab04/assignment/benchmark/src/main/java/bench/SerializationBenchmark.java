@@ -0,0 +1,102 @@
+package bench;
+
+import com.hazelcast.internal.serialization.Data;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import common.Comment;
+import common.Document;
+import hazel.DocSerializableFactory;
+import hazel.processor.AddCommentProcessor;
+import hazel.processor.IncrementViewsProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload size and serialization round trips (toData + toObject, single thread) of the values sent most often,
+ * as IdentifiedDataSerializable compared to their former java.io.Serializable form (package legacy).
+ * No cluster is needed - the values go through a serialization service set up like the one of members and clients
+ * (hazelcast internals, but only here in the benchmark).
+ * <p>
+ * The sizes alone (the table in README) are printed by:
+ * java -cp target/benchmarks.jar bench.SerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final String[] TYPES = {"Document", "Comment", "CommentList", "AddCommentProcessor", "IncrementViewsProcessor"};
+    private static final String DOC = "doc0";
+    private static final String CONTENT = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore.";
+    private static final int LIST_SIZE = 10;
+
+    @Param({"Document", "Comment", "CommentList", "AddCommentProcessor", "IncrementViewsProcessor"})
+    public String type;
+
+    @Param({"false", "true"})
+    public boolean legacy;
+
+    private SerializationService serialization;
+    private Object value;
+
+    @Setup
+    public void setup() {
+        serialization = serializationService();
+        value = create(type, legacy);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return serialization.toObject(serialization.toData(value));
+    }
+
+    private static SerializationService serializationService() {
+        return new DefaultSerializationServiceBuilder()
+                .addDataSerializableFactory(DocSerializableFactory.FACTORY_ID, new DocSerializableFactory())
+                .build();
+    }
+
+    private static Object create(String type, boolean legacy) {
+        Date createdAt = new Date();
+        switch (type) {
+            case "Document":
+                return legacy ? new legacy.Document(CONTENT) : new Document(CONTENT);
+            case "Comment":
+                return legacy ? new legacy.Comment("Benchmark comment", "bench", createdAt) : new Comment("Benchmark comment", "bench");
+            case "CommentList":
+                List<Object> comments = new ArrayList<>();
+                for (int i = 0; i < LIST_SIZE; i++)
+                    comments.add(create("Comment", legacy));
+                return comments;
+            case "AddCommentProcessor":
+                return legacy
+                        ? new legacy.processor.AddCommentProcessor(DOC, new legacy.Comment("Benchmark comment", "bench", createdAt))
+                        : new AddCommentProcessor(DOC, new Comment("Benchmark comment", "bench"), 0);
+            case "IncrementViewsProcessor":
+                return legacy ? new legacy.processor.IncrementViewsProcessor(DOC) : new IncrementViewsProcessor(DOC);
+            default:
+                throw new IllegalArgumentException("Unknown type " + type);
+        }
+    }
+
+    /**
+     * Print the serialized size of every type in both forms.
+     */
+    public static void main(String[] args) {
+        SerializationService serialization = serializationService();
+        System.out.printf("%-24s%-18s%s%n", "", "Serializable", "IdentifiedDataSerializable");
+        for (String type : TYPES) {
+            Data legacyData = serialization.toData(create(type, true));
+            Data data = serialization.toData(create(type, false));
+            String name = type.equals("CommentList") ? "List<Comment> (" + LIST_SIZE + ")" : type;
+            System.out.printf("%-24s%-18s%s%n", name, legacyData.totalSize() + " B", data.totalSize() + " B");
+        }
+    }
+}
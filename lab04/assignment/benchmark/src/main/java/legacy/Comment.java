@@ -0,0 +1,21 @@
+package legacy;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * common.Comment as it was before it became IdentifiedDataSerializable - the same fields and a class name of the same length,
+ * so that SerializationBenchmark compares the formats, not the names.
+ */
+public class Comment implements Serializable {
+
+    private final String text;
+    private final String author;
+    private final Date createdAt;
+
+    public Comment(String text, String author, Date createdAt) {
+        this.text = text;
+        this.author = author;
+        this.createdAt = createdAt;
+    }
+}
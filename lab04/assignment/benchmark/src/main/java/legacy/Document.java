@@ -0,0 +1,15 @@
+package legacy;
+
+import java.io.Serializable;
+
+/**
+ * common.Document as it was before it became IdentifiedDataSerializable (see SerializationBenchmark).
+ */
+public class Document implements Serializable {
+
+    private final String content;
+
+    public Document(String content) {
+        this.content = content;
+    }
+}
@@ -0,0 +1,20 @@
+package legacy.processor;
+
+import legacy.Comment;
+
+import java.io.Serializable;
+
+/**
+ * Serialized form of hazel.processor.AddCommentProcessor before it became IdentifiedDataSerializable
+ * (see SerializationBenchmark). Only what is sent matters, so it doesn't process anything.
+ */
+public class AddCommentProcessor implements Serializable {
+
+    private final Comment comment;
+    private final String docName;
+
+    public AddCommentProcessor(String docName, Comment comment) {
+        this.docName = docName;
+        this.comment = comment;
+    }
+}
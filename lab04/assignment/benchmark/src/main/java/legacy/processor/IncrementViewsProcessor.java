@@ -0,0 +1,16 @@
+package legacy.processor;
+
+import java.io.Serializable;
+
+/**
+ * Serialized form of hazel.processor.IncrementViewsProcessor before it became IdentifiedDataSerializable
+ * (see SerializationBenchmark). Only what is sent matters, so it doesn't process anything.
+ */
+public class IncrementViewsProcessor implements Serializable {
+
+    private final String docName;
+
+    public IncrementViewsProcessor(String docName) {
+        this.docName = docName;
+    }
+}
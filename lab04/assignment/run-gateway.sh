@@ -0,0 +1,3 @@
+#!/bin/bash
+source setenv.sh
+java Gateway $@
\ No newline at end of file
@@ -0,0 +1,3 @@
+#!/bin/bash
+source setenv.sh
+java load.LoadGenerator $@
\ No newline at end of file
@@ -1,28 +1,65 @@
 import com.hazelcast.client.HazelcastClient;
 import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.config.EvictionConfig;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MaxSizePolicy;
+import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.core.HazelcastInstance;
-import com.hazelcast.core.IExecutorService;
 import com.hazelcast.map.IMap;
+import com.hazelcast.nearcache.NearCacheStats;
 import common.*;
-import hazel.FetchDocTask;
-import hazel.processor.*;
+import hazel.AsyncDocClient;
+import hazel.DocSerializableFactory;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.io.PrintStream;
+import java.io.Reader;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static common.Constants.*;
 
 public class Client {
-	// Reader for user input
-	private final LineNumberReader in = new LineNumberReader(new InputStreamReader(System.in));
-	// Connection to the cluster
+	// Bounds of the optional near cache of documents
+	private static final int NEAR_CACHE_SIZE = 1000;
+	private static final int NEAR_CACHE_TTL_SECONDS = 600;
+	// Number of latest comments shown by the info command
+	private static final int INFO_COMMENT_COUNT = 10;
+	// Number of favourites fetched at once by the list command
+	private static final int FAVORITES_PAGE_SIZE = 100;
+	// Number of documents shown by the top viewed command
+	private static final int TOP_VIEWED_COUNT = 10;
+	// Number of comments shown by the find comments command
+	private static final int FOUND_COMMENTS_SHOWN = 50;
+	// Maximum number of requests in flight at once and how long to wait for a single one
+	private static final int MAX_IN_FLIGHT = 16;
+	private static final int REQUEST_TIMEOUT_SECONDS = 30;
+
+	// Reader for user input and where the output for the user goes
+	private final LineNumberReader in;
+	private final PrintStream out;
+	// Connection to the cluster, possibly shared by many users (see Gateway)
 	private final HazelcastInstance hazelcast;
+	private final boolean ownsHazelcast;
+	// Asynchronous operations of the user
+	private final AsyncDocClient docClient;
 	// The name of the user
 	private final String userName;
+	// Latencies of requests of each command, only for showing them to the user
+	private final Map<Character, LatencyHistogram> requestLatencies = new TreeMap<>();
+	// Whether documents are read through the near cache
+	private final boolean nearCacheEnabled;
+	// Document whose live updates are shown and registration of its listener, null when live updates are off
+	private String followedDocName;
+	private UUID followRegistration;
 	// Do not keep any other state here - all data should be in the cluster
 
 	/**
@@ -30,16 +67,84 @@ public class Client {
 	 * @param userName user name used to identify the user
 	 */
 	public Client(String userName) {
+		this(userName, false);
+	}
+
+	/**
+	 * Create a client for the specified user.
+	 * @param userName user name used to identify the user
+	 * @param nearCacheEnabled whether to keep a near cache of documents (invalidated by the cluster)
+	 */
+	public Client(String userName, boolean nearCacheEnabled) {
+		this(userName, newHazelcastClient(nearCacheEnabled), true, nearCacheEnabled,
+				new InputStreamReader(System.in), System.out);
+	}
+
+	/**
+	 * Create a session of the specified user on a connection shared with other users (see Gateway).
+	 * Disconnecting the session leaves the connection open.
+	 * @param userName user name used to identify the user
+	 * @param hazelcast shared connection to the cluster
+	 * @param nearCacheEnabled whether the shared connection keeps a near cache of documents
+	 * @param input reader of the user commands
+	 * @param output where the output for the user goes
+	 */
+	public Client(String userName, HazelcastInstance hazelcast, boolean nearCacheEnabled, Reader input, PrintStream output) {
+		this(userName, hazelcast, false, nearCacheEnabled, input, output);
+	}
+
+	private Client(String userName, HazelcastInstance hazelcast, boolean ownsHazelcast, boolean nearCacheEnabled,
+				   Reader input, PrintStream output) {
 		this.userName = userName;
+		this.hazelcast = hazelcast;
+		this.ownsHazelcast = ownsHazelcast;
+		this.nearCacheEnabled = nearCacheEnabled;
+		this.in = new LineNumberReader(input);
+		this.out = output;
+		docClient = new AsyncDocClient(hazelcast, userName, nearCacheEnabled, MAX_IN_FLIGHT);
+	}
 
+	/**
+	 * Connect to the cluster as a client, optionally with a near cache of documents (invalidated by the cluster).
+	 */
+	static HazelcastInstance newHazelcastClient(boolean nearCacheEnabled) {
 		ClientConfig config = new ClientConfig();
-		hazelcast = HazelcastClient.newHazelcastClient(config);
+		config.getSerializationConfig()
+				.addDataSerializableFactory(DocSerializableFactory.FACTORY_ID, new DocSerializableFactory());
+		if (nearCacheEnabled) {
+			// Documents are immutable, members only send invalidations when one is removed or replaced
+			config.addNearCacheConfig(new NearCacheConfig(DOC_CACHE_MAP)
+					.setInMemoryFormat(InMemoryFormat.OBJECT)
+					.setInvalidateOnChange(true)
+					.setTimeToLiveSeconds(NEAR_CACHE_TTL_SECONDS)
+					.setEvictionConfig(new EvictionConfig()
+							.setEvictionPolicy(EvictionPolicy.LRU)
+							.setMaxSizePolicy(MaxSizePolicy.ENTRY_COUNT)
+							.setSize(NEAR_CACHE_SIZE)));
+		}
+		return HazelcastClient.newHazelcastClient(config);
 	}
 
 	/**
-	 * Disconnect from the Hazelcast cluster.
+	 * Disconnect from the Hazelcast cluster (only end the session if the connection is shared).
 	 */
 	public void disconnect() {
+		metricsCommand();
+		if (followedDocName != null)
+			unfollow();
+		// A shared connection (and its near cache) outlives the session
+		if (!ownsHazelcast)
+			return;
+
+		if (nearCacheEnabled) {
+			IMap<DocKey, Document> docMap = hazelcast.getMap(DOC_CACHE_MAP);
+			NearCacheStats stats = docMap.getLocalMapStats().getNearCacheStats();
+			long requests = stats.getHits() + stats.getMisses();
+			out.printf("Document near cache: %d hits, %d misses (%.1f%% hits), %d entries.%n",
+					stats.getHits(), stats.getMisses(), requests == 0 ? 0.0 : 100.0 * stats.getHits() / requests,
+					stats.getOwnedEntryCount());
+		}
+
 		// Disconnect from the Hazelcast cluster
 		hazelcast.shutdown();
 	}
@@ -47,35 +152,35 @@ public class Client {
 	/**
 	 * Custom debugging method to start up some testing data
 	 */
-	public void setupDemo() throws ExecutionException, InterruptedException {
-		System.out.println("Client setting up demo environment...");
+	public void setupDemo() throws ExecutionException, InterruptedException, TimeoutException {
+		out.println("Client setting up demo environment...");
 		Random rnd = new Random();
-		IMap<String, Document> docMap = hazelcast.getMap(DOC_CACHE_MAP);
-		IMap<String, List<String>> faveMap = hazelcast.getMap(FAVE_DOCS_MAP);
-		IMap<String, List<Comment>> commMap = hazelcast.getMap(DOC_COMMS_MAP);
-		IExecutorService executor = hazelcast.getExecutorService(DEFAULT_EXECUTOR);
 
 		List<String> docNames = Arrays.asList("abc", "def", "ghi", "jkl", "mno", "pqr", "stu", "vwx");
 
 		Collections.shuffle(docNames);
+		// Documents are independent, so each one is set up as a separate chain and all of them run at once
+		// (dependent requests are started from callbacks, which is fine - requests over the in-flight limit are queued, not waited for)
+		List<CompletableFuture<?>> setups = new ArrayList<>();
 		for (String docName : docNames.subList(0, 3)) {
-			System.out.printf("Publishing %s...%n",docName);
-			executor.submit(new FetchDocTask(userName, docName)).get();
-
+			out.printf("Publishing %s...%n",docName);
 			boolean isFave = rnd.nextBoolean();
-			if (isFave) {
-				System.out.println("... that's a good one.");
-				faveMap.executeOnKey(docName, new AddToFavesProcessor(userName, docName));
-			}
-
+			if (isFave)
+				out.printf("... %s is a good one.%n", docName);
 			int comCount = rnd.nextInt(3);
-			System.out.printf("Ranting on %s...%n",docName);
+			out.printf("Ranting on %s...%n",docName);
+
+			CompletionStage<?> setup = docClient.fetchDocument(docName);
+			if (isFave)
+				setup = setup.thenCompose(document -> docClient.addFavorite(docName));
 			for (int i = 0; i < comCount; i++) {
 				Comment comm = new Comment("Comment #" + i, userName);
-				commMap.executeOnKey(docName, new AddCommentProcessor(docName, comm));
+				setup = setup.thenCompose(result -> docClient.addComment(docName, comm));
 			}
+			setups.add(setup.toCompletableFuture());
 		}
-		System.out.println("All done, test data is up.");
+		await(CompletableFuture.allOf(setups.toArray(new CompletableFuture<?>[0])));
+		out.println("All done, test data is up.");
 	}
 
 	/**
@@ -84,33 +189,23 @@ public class Client {
 	 * and show the document content.
 	 */
 	private void showCommand() throws IOException {
-		System.out.println("Enter document name:");
+		out.println("Enter document name:");
 		String documentName = in.readLine();
+		if (documentName == null)
+			return;
 
-		// Currently, the document is generated directly on the client
-		// TODO: change it, so that the document is generated in the cluster and cached
-		// TODO: Set the current selected document for the user
-		// TODO: Get the document (from the cache, or generated)
-		// TODO: Increment the view count
-		Future<Document> docRequest = hazelcast
-				.getExecutorService(DEFAULT_EXECUTOR)
-				.submit(new FetchDocTask(userName, documentName));
-
-		Document document = null;
-		try {
-			document = docRequest.get();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
-
+		// Fetch the document in the cluster, which also selects it for the user and increments its view count
+		Document document = request('s', docClient.fetchDocument(documentName));
 		if (document == null) {
-			System.out.println("UNEXPECTED: Failed to fetch document.");
+			out.println("UNEXPECTED: Failed to fetch document.");
 			return;
 		}
 
+		followSelected(documentName);
+
 		// Show the document content
-		System.out.println("The document is:");
-		System.out.println(document.getContent());
+		out.println("The document is:");
+		printDocument(documentName, document);
 	}
 
 	/**
@@ -119,41 +214,47 @@ public class Client {
 	 * will cyclically show all favorite documents of the user.
 	 */
 	private void nextFavoriteCommand() {
-		// TODO: Select the next document form the list of favorites
-		// TODO: Increment the view count, get the document (from the cache, or generated) and show the document content
+		// Find the next favourite after the last viewed document and fetch it, all in the cluster
+		// (with near cache, the document itself is not sent back and is read locally instead)
+		CommandResult<Document> result = request('n', docClient.nextFavorite());
+		if (result == null)
+			return;
 
-		// Find the last viewed document
-		IMap<String, String> lastViewedMap = hazelcast.getMap(LAST_DOCS_MAP);
-		String lastDocName = lastViewedMap.executeOnKey(userName, new GetUserLastViewedProcessor(userName));
-		if (lastDocName == null) {
-			System.out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
+		if (result.getDocName() == null) {
+			out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
 			return;
 		}
 
-		// Try to find next in favourites (possibly the same one if only that one is favourited)
-		IMap<String, List<String>> faveMap = hazelcast.getMap(FAVE_DOCS_MAP);
-		String nextDocName = faveMap.executeOnKey(userName, new GetNextFaveProcessor(userName, lastDocName));
-		if (nextDocName == null) {
-			System.out.printf("Your last viewed document (%s) is not your favourite.%n", lastDocName);
-			System.out.println("Try using 'l' command to see your favourites.");
+		Document document = result.getValue();
+		if (document == null) {
+			out.println("Your list of favorite documents is empty.");
+			out.println("Try using 'a' command to add your last viewed document.");
 			return;
 		}
 
-		// Fetch the document contents
-		Future<Document> docRequest = hazelcast
-				.getExecutorService(DEFAULT_EXECUTOR)
-				.submit(new FetchDocTask(userName, nextDocName));
-
-		Document document = null;
-		try {
-			document = docRequest.get();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		followSelected(result.getDocName());
 
 		// Show the document content
-		System.out.println("Your next favourite document is:");
-		System.out.println(document.getContent());
+		out.println("Your next favourite document is:");
+		printDocument(result.getDocName(), document);
+	}
+
+	/**
+	 * Print the document content as it arrives (large documents are fetched in chunks).
+	 */
+	private void printDocument(String docName, Document document) {
+		try (Reader content = docClient.openContent(docName, document)) {
+			char[] buffer = new char[8192];
+			int read;
+			while ((read = content.read(buffer)) >= 0) {
+				out.print(new String(buffer, 0, read));
+				out.flush();
+			}
+			out.println();
+		} catch (IOException e) {
+			out.println();
+			out.println("UNEXPECTED: Failed to read the document: " + e.getMessage());
+		}
 	}
 
 	/**
@@ -161,24 +262,21 @@ public class Client {
 	 * If the list already contains the document name, do nothing.
 	 */
 	private void addFavoriteCommand() {
-		// TODO: Add the name of the selected document to the list of favorites
+		// Try adding the last viewed document (possibly failing if it's already present)
+		CommandResult<Boolean> result = request('a', docClient.addFavorite());
+		if (result == null)
+			return;
 
-		// Find the last viewed document
-		IMap<String, String> lastViewedMap = hazelcast.getMap(LAST_DOCS_MAP);
-		String lastDocName = lastViewedMap.executeOnKey(userName, new GetUserLastViewedProcessor(userName));
-		if (lastDocName == null) {
-			System.out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
+		if (result.getDocName() == null) {
+			out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
 			return;
 		}
 
-		// Try adding it (possibly failing if it's already present)
-		IMap<String, List<String>> faveMap = hazelcast.getMap(FAVE_DOCS_MAP);
-		boolean success = faveMap.executeOnKey(userName, new AddToFavesProcessor(userName, lastDocName));
-		if (!success) {
-			System.out.printf("Document %s already in favorites%n", lastDocName);
+		if (!result.getValue()) {
+			out.printf("Document %s already in favorites%n", result.getDocName());
 		}
 		else {
-			System.out.printf("Added %s to favorites%n", lastDocName);
+			out.printf("Added %s to favorites%n", result.getDocName());
 		}
 	}
 
@@ -187,114 +285,303 @@ public class Client {
 	 * If the list does not contain the document name, do nothing.
 	 */
 	private void removeFavoriteCommand(){
-		// TODO: Remove the name of the selected document from the list of favorites
+		// Try removing the last viewed document
+		CommandResult<Boolean> result = request('r', docClient.removeFavorite());
+		if (result == null)
+			return;
 
-		// Find the last viewed document
-		IMap<String, String> lastViewedMap = hazelcast.getMap(LAST_DOCS_MAP);
-		String lastDocName = lastViewedMap.executeOnKey(userName, new GetUserLastViewedProcessor(userName));
-		if (lastDocName == null) {
-			System.out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
+		if (result.getDocName() == null) {
+			out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
 			return;
 		}
 
-		// Try removing it
-		IMap<String, List<String>> faveMap = hazelcast.getMap(FAVE_DOCS_MAP);
-		boolean success = faveMap.executeOnKey(userName, new RemoveFromFavesProcessor(userName, lastDocName));
-		if (!success) {
-			System.out.printf("Document %s is not your favorite%n", lastDocName);
+		if (!result.getValue()) {
+			out.printf("Document %s is not your favorite%n", result.getDocName());
 		}
 		else {
-			System.out.printf("Removed %s from favorites%n", lastDocName);
+			out.printf("Removed %s from favorites%n", result.getDocName());
 		}
 	}
 
 	/**
-	 * Add the current selected document name to the list of favorite documents of the user.
-	 * If the list already contains the document name, do nothing.
+	 * Show the list of favorite documents of the user.
+	 * The list is fetched and printed page by page, so that long lists are never sent at once.
 	 */
 	private void listFavoritesCommand() {
-
-		IMap<String, List<String>> faveMap = hazelcast.getMap(FAVE_DOCS_MAP);
-		List<String> favourites = faveMap.executeOnKey(userName, new GetAllFavesProcessor(userName));
+		List<String> favourites = request('l', docClient.favoritesPage(null, FAVORITES_PAGE_SIZE));
+		if (favourites == null)
+			return;
 
 		if (favourites.size() == 0) {
-			System.out.println("Your list of favorite documents is empty.");
+			out.println("Your list of favorite documents is empty.");
+			return;
 		}
-		else {
-			// TODO: Get the list of favorite documents of the user
-			// Print the list of favorite documents
-			System.out.println("Your list of favorite documents:");
+
+		// Print the list of favorite documents
+		out.println("Your list of favorite documents:");
+		while (!favourites.isEmpty()) {
 			for(String favoriteDocumentName: favourites)
-				System.out.println(favoriteDocumentName);
+				out.println(favoriteDocumentName);
+			if (favourites.size() < FAVORITES_PAGE_SIZE)
+				break;
+
+			String last = favourites.get(favourites.size() - 1);
+			favourites = request('l', docClient.favoritesPage(last, FAVORITES_PAGE_SIZE));
+			if (favourites == null)
+				return;
 		}
-
 	}
 
 	/**
-	 * Show the view count and comments of the current selected document.
+	 * Turn live updates of the selected document on or off.
+	 * While on, new comments and view counts of the selected document are shown as they come,
+	 * and selecting another document follows that one instead.
 	 */
-	private void infoCommand(){
+	private void liveUpdatesCommand() {
+		if (followedDocName != null) {
+			unfollow();
+			out.println("Live updates turned off.");
+			return;
+		}
 
-		// TODO: Get the view count and list of comments of the selected document
-		// Find the last viewed document
-		IMap<String, String> lastViewedMap = hazelcast.getMap(LAST_DOCS_MAP);
-		String lastDocName = lastViewedMap.executeOnKey(userName, new GetUserLastViewedProcessor(userName));
-		if (lastDocName == null) {
-			System.out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
+		CommandResult<DocInfo> result = request('u', docClient.info(0));
+		if (result == null)
+			return;
+
+		if (result.getDocName() == null) {
+			out.println("Select a document first, its updates will then be shown.");
 			return;
 		}
 
-		// Find its view count
-		IMap<String, Integer> viewsMap = hazelcast.getMap(DOC_VIEWS_MAP);
-		int viewCount = viewsMap.executeOnKey(lastDocName, new GetViewsProcessor(lastDocName));
-		if (viewCount < 0) {
-			System.out.println("UNEXPECTED: Failed to retrieve view count for a document.");
+		follow(result.getDocName());
+		DocInfo info = result.getValue();
+		if (info != null)
+			out.printf("Following %s (%d views, %d comments), turn off by 'u'.%n",
+					result.getDocName(), info.getViewCount(), info.getComments().getTotalCount());
+		else
+			out.printf("Following %s, turn off by 'u'.%n", result.getDocName());
+	}
+
+	/**
+	 * Follow the newly selected document instead of the previous one, if live updates are on.
+	 */
+	private void followSelected(String docName) {
+		if (followedDocName == null || followedDocName.equals(docName))
+			return;
+		unfollow();
+		follow(docName);
+		out.printf("Following %s now.%n", docName);
+	}
+
+	private void follow(String docName) {
+		// The same view count may be pushed more than once, only increases are shown
+		AtomicInteger shownViews = new AtomicInteger();
+		followRegistration = docClient.follow(docName, update -> {
+			if (!update.isComment() && shownViews.getAndAccumulate(update.getViewCount(), Math::max) >= update.getViewCount())
+				return;
+			out.println("[live] " + update);
+		});
+		followedDocName = docName;
+	}
+
+	private void unfollow() {
+		docClient.unfollow(followedDocName, followRegistration);
+		followedDocName = null;
+		followRegistration = null;
+	}
+
+	/**
+	 * Show the most viewed documents and their view counts.
+	 */
+	private void topViewedCommand() {
+		ViewRanking ranking = request('t', docClient.topViewed(TOP_VIEWED_COUNT));
+		if (ranking == null)
+			return;
+
+		if (ranking.size() == 0) {
+			out.println("No document has been viewed yet.");
 			return;
 		}
 
-		// Get comments
-		IMap<String, List<Comment>> commentMap = hazelcast.getMap(DOC_COMMS_MAP);
-		List<Comment> comments = commentMap.executeOnKey(lastDocName, new GetAllCommentsProcessor(lastDocName));
-		if (comments == null) {
-			System.out.println("UNEXPECTED: Failed to retrieve comments for a document.");
+		out.println("Most viewed documents:");
+		for (int rank = 0; rank < ranking.size(); rank++)
+			out.printf("%2d. %s (%d views)%n", rank + 1, ranking.getDocName(rank), ranking.getViewCount(rank));
+	}
+
+	/**
+	 * Show the view count and comments of the current selected document.
+	 */
+	private void infoCommand(){
+		// Find view count and latest comments of the last viewed document
+		CommandResult<DocInfo> result = request('i', docClient.info(INFO_COMMENT_COUNT));
+		if (result == null)
+			return;
+
+		if (result.getDocName() == null) {
+			out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
 			return;
 		}
 
+		DocInfo info = result.getValue();
+		if (info == null) {
+			out.println("UNEXPECTED: Failed to retrieve view count or comments for a document.");
+			return;
+		}
 
 		// Print the information
-		System.out.printf("Info about %s:%n", lastDocName);
-		System.out.printf("Viewed %d times.%n", viewCount);
-		System.out.printf("Comments (%d):%n", comments.size());
-		for(Comment comment: comments)
-			System.out.println(comment);
+		out.printf("Info about %s:%n", result.getDocName());
+		out.printf("Viewed %d times.%n", info.getViewCount());
+		CommentPage comments = info.getComments();
+		out.printf("Comments (%d):%n", comments.getTotalCount());
+		if (comments.getOffset() > 0)
+			out.printf("(showing the latest %d)%n", comments.getComments().size());
+		for(Comment comment: comments.getComments())
+			out.println(comment);
 	}
 	/**
 	 * Add a comment about the current selected document.
 	 */
 	private void commentCommand() throws IOException{
-		System.out.println("Enter comment text:");
+		out.println("Enter comment text:");
 		String commentText = in.readLine();
+		if (commentText == null)
+			return;
 
-		// TODO: Add the comment to the list of comments of the selected document
-		Comment comment = new Comment(commentText, userName);
+		// Try adding the comment to the last viewed document
+		CommandResult<Boolean> result = request('c', docClient.comment(commentText));
+		if (result == null)
+			return;
 
-		// Find the last viewed document
-		IMap<String, String> lastViewedMap = hazelcast.getMap(LAST_DOCS_MAP);
-		String lastDocName = lastViewedMap.executeOnKey(userName, new GetUserLastViewedProcessor(userName));
-		if (lastDocName == null) {
-			System.out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
+		if (result.getDocName() == null) {
+			out.println("UNEXPECTED: Failed to retrieve name of the last viewed document.");
 			return;
 		}
 
-		// Try adding it
-		IMap<String, List<Comment>> commMap = hazelcast.getMap(DOC_COMMS_MAP);
-		boolean success = commMap.executeOnKey(lastDocName, new AddCommentProcessor(lastDocName, comment));
-		if (!success) {
-			System.out.println("UNEXPECTED: Failed to add a comment to the document.");
+		if (!result.getValue()) {
+			out.println("UNEXPECTED: Failed to add a comment to the document.");
 			return;
 		}
 
-		System.out.printf("Added a comment about %s.%n", lastDocName);
+		out.printf("Added a comment about %s.%n", result.getDocName());
+	}
+
+	/**
+	 * Read an author and a time window and show the comments of all documents matching them.
+	 */
+	private void findCommentsCommand() throws IOException {
+		out.println("Enter author (empty for anyone):");
+		String author = in.readLine();
+		if (author == null)
+			return;
+		author = author.trim();
+		out.println("Enter how many minutes back (empty for any time):");
+		String minutes = in.readLine();
+		if (minutes == null)
+			return;
+		minutes = minutes.trim();
+		if (author.isEmpty() && minutes.isEmpty()) {
+			out.println("Enter an author or a number of minutes, all comments can't be listed at once.");
+			return;
+		}
+
+		Date since = null;
+		if (!minutes.isEmpty()) {
+			try {
+				since = new Date(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(Long.parseLong(minutes)));
+			} catch (NumberFormatException e) {
+				out.println("Not a number of minutes: " + minutes);
+				return;
+			}
+		}
+
+		// one more than shown tells whether there are more of them
+		List<CommentMatch> matches = request('f', docClient.findComments(author.isEmpty() ? null : author, since, null,
+				FOUND_COMMENTS_SHOWN + 1));
+		if (matches == null)
+			return;
+
+		if (matches.isEmpty()) {
+			out.println("No comments found.");
+			return;
+		}
+
+		if (matches.size() > FOUND_COMMENTS_SHOWN)
+			out.printf("Found more than %d comments, the latest of them:%n", FOUND_COMMENTS_SHOWN);
+		else
+			out.printf("Found %d comments:%n", matches.size());
+		for (CommentMatch match : matches.subList(0, Math.min(FOUND_COMMENTS_SHOWN, matches.size()))) {
+			out.println("On " + match.getDocName() + ":");
+			out.println(match.getComment());
+		}
+	}
+
+	/**
+	 * Read names of documents and make sure all of them are cached in the cluster,
+	 * so that nobody has to wait for their generation later. Does not select any document nor count views.
+	 */
+	private void warmUpCommand() throws IOException {
+		out.println("Enter document names (separated by spaces):");
+		String line = in.readLine();
+		if (line == null)
+			return;
+
+		Set<String> docNames = new LinkedHashSet<>();
+		for (String docName : line.trim().split("\\s+"))
+			if (!docName.isEmpty())
+				docNames.add(docName);
+		if (docNames.isEmpty())
+			return;
+
+		try {
+			// Wait without a timeout, the warm-up may take long but keeps reporting its progress
+			WarmUpResult result = docClient.warmUp(docNames, progress ->
+					out.printf("Warming up... %d/%d documents%n", progress.getDone(), docNames.size()))
+					.toCompletableFuture().get();
+			out.printf("Warmed up %s.%n", result);
+		} catch (Exception e) {
+			e.printStackTrace(out);
+		}
+	}
+
+	/**
+	 * Wait for a request of given command started by the async client, at most REQUEST_TIMEOUT_SECONDS.
+	 * Returns null if the request failed or timed out.
+	 */
+	private <T> T request(char command, CompletionStage<T> request) {
+		long start = System.nanoTime();
+		try {
+			return await(request);
+		} catch (TimeoutException e) {
+			out.println("UNEXPECTED: Request timed out.");
+			return null;
+		} catch (Exception e) {
+			e.printStackTrace(out);
+			return null;
+		} finally {
+			requestLatencies.computeIfAbsent(command, c -> new LatencyHistogram()).record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Show the latencies of requests made by this client so far (failed ones included).
+	 */
+	private void metricsCommand() {
+		if (requestLatencies.isEmpty()) {
+			out.println("No requests made yet.");
+			return;
+		}
+
+		out.println("Request latencies (ms):");
+		for (Map.Entry<Character, LatencyHistogram> command : requestLatencies.entrySet()) {
+			LatencyHistogram latency = command.getValue();
+			out.printf(" %s - %d requests, mean %.2f, p50 %.2f, p99 %.2f, max %.2f%n", command.getKey(),
+					latency.getCount(), latency.getMean() / 1e6, latency.getPercentile(0.5) / 1e6,
+					latency.getPercentile(0.99) / 1e6, latency.getMax() / 1e6);
+		}
+	}
+
+	private static <T> T await(CompletionStage<T> stage) throws ExecutionException, InterruptedException, TimeoutException {
+		return stage.toCompletableFuture().get(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 	}
 
 	/*
@@ -303,22 +590,28 @@ public class Client {
 	public void run() throws IOException {
 		loop:
 		while (true) {
-			System.out.println("\nAvailable commands (type and press enter):");
-			System.out.println(" s - select and show document");
-			System.out.println(" i - show document view count and comments");
-			System.out.println(" c - add comment");
-			System.out.println(" a - add to favorites");
-			System.out.println(" r - remove from favorites");
-			System.out.println(" n - show next favorite");
-			System.out.println(" l - list all favorites");
-			System.out.println(" q - quit");
+			out.println("\nAvailable commands (type and press enter):");
+			out.println(" s - select and show document");
+			out.println(" i - show document view count and comments");
+			out.println(" c - add comment");
+			out.println(" a - add to favorites");
+			out.println(" r - remove from favorites");
+			out.println(" n - show next favorite");
+			out.println(" l - list all favorites");
+			out.println(" t - show most viewed documents");
+			out.println(" f - find comments by author and time");
+			out.println(" u - turn live updates of the selected document on/off");
+			out.println(" w - warm up documents");
+			out.println(" m - show request latencies");
+			out.println(" q - quit");
 			// read first character
 			int c = in.read();
-			// throw away rest of the buffered line
-			while (in.ready())
-				in.read();
+			// throw away rest of the line (not more, input sent ahead by a gateway session is kept)
+			if (c != '\n' && c != -1)
+				in.readLine();
 			switch (c) {
 				case 'q': // Quit the application
+				case -1: // or the input has ended
 					break loop;
 				case 's': // Select and show a document
 					showCommand();
@@ -341,6 +634,21 @@ public class Client {
 				case 'l': // Show the list of favorite documents
 					listFavoritesCommand();
 					break;
+				case 't': // Show the most viewed documents
+					topViewedCommand();
+					break;
+				case 'f': // Find comments of all documents
+					findCommentsCommand();
+					break;
+				case 'u': // Follow live updates of the selected document
+					liveUpdatesCommand();
+					break;
+				case 'w': // Make sure given documents are cached
+					warmUpCommand();
+					break;
+				case 'm': // Show latencies of requests made so far
+					metricsCommand();
+					break;
 				case '\n':
 				default:
 					break;
@@ -352,15 +660,31 @@ public class Client {
 	 * Main method, creates a client instance and runs its loop
 	 */
 	public static void main(String[] args) {
-		if (args.length < 1 || args.length > 2 || (args.length == 2 && !Objects.equals(args[1], "demo"))) {
-			System.err.println("Usage: ./client <userName> [demo]");
+		if (args.length < 1) {
+			System.err.println("Usage: ./client <userName> [demo] [--near-cache]");
 			return;
 		}
 
+		boolean demo = false;
+		boolean nearCache = false;
+		for (int i = 1; i < args.length; i++) {
+			switch (args[i]) {
+				case "demo":
+					demo = true;
+					break;
+				case "--near-cache":
+					nearCache = true;
+					break;
+				default:
+					System.err.println("Usage: ./client <userName> [demo] [--near-cache]");
+					return;
+			}
+		}
+
 		try {
-			Client client = new Client(args[0]);
+			Client client = new Client(args[0], nearCache);
 
-			if (args.length > 1)
+			if (demo)
 				client.setupDemo();
 
 			client.run();
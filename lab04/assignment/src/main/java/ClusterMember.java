@@ -5,9 +5,17 @@ import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.map.IMap;
 import common.Constants;
 import common.Document;
+import common.WarmUpResult;
+import hazel.DocumentMetrics;
+import hazel.DocumentWarmUp;
+import hazel.MemberRole;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 public class ClusterMember {
 
@@ -15,24 +23,79 @@ public class ClusterMember {
     HazelcastInstance hazelcast;
 
     public ClusterMember(String prefix) throws FileNotFoundException {
+        this(prefix, MemberRole.ALL);
+    }
+
+    public ClusterMember(String prefix, MemberRole role) throws FileNotFoundException {
 
         Config config = new FileSystemYamlConfig("hazelcast.yaml");
+        role.apply(config);
 
         hazelcast = Hazelcast.newHazelcastInstance(config);
         String memberName = hazelcast.getName();
+        // Register metrics right away, so they are visible (via JMX and dumps) before the first fetch
+        DocumentMetrics.of(hazelcast);
+
+        System.out.printf("ClusterMember %s:%s (%s) constructed.%n", prefix, memberName, role);
+    }
+
+    /**
+     * Make sure all documents listed in the file (one name per line, # starts a comment) are cached,
+     * generating the missing ones across the whole cluster.
+     */
+    public void warmUp(Path catalogue) throws Exception {
+        Set<String> docNames = new LinkedHashSet<>();
+        for (String line : Files.readAllLines(catalogue)) {
+            String docName = line.trim();
+            if (!docName.isEmpty() && !docName.startsWith("#"))
+                docNames.add(docName);
+        }
 
-        System.out.printf("ClusterMember %s:%s constructed.%n", prefix, memberName);
+        System.out.printf("Warming up %d documents from %s...%n", docNames.size(), catalogue);
+        WarmUpResult result = DocumentWarmUp.warmUp(hazelcast, docNames, progress ->
+                System.out.printf("Warming up... %d/%d documents%n", progress.getDone(), docNames.size()))
+                .toCompletableFuture().get();
+        System.out.printf("Warmed up %s.%n", result);
     }
 
+    private static final String USAGE = "Usage: bash run-member.sh <prefix> [--role all|data|generator|lite]"
+            + " [--warm-up <file with document names>]";
+
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.err.println("Usage: bash run-member.sh <prefix>");
+        if (args.length == 0 || args.length % 2 != 1) {
+            System.err.println(USAGE);
             return;
         }
         String prefix = args[0];
+        MemberRole role = MemberRole.ALL;
+        Path warmUpCatalogue = null;
+        for (int i = 1; i < args.length; i += 2) {
+            if (args[i].equals("--role")) {
+                try {
+                    role = MemberRole.parse(args[i + 1]);
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    System.err.println(USAGE);
+                    return;
+                }
+            } else if (args[i].equals("--warm-up")) {
+                warmUpCatalogue = Path.of(args[i + 1]);
+            } else {
+                System.err.println(USAGE);
+                return;
+            }
+        }
 
         try {
-            ClusterMember member = new ClusterMember(prefix);
+            ClusterMember member = new ClusterMember(prefix, role);
+
+            if (warmUpCatalogue != null) {
+                try {
+                    member.warmUp(warmUpCatalogue);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
 
             try {
                 System.out.println("Press enter to exit");
@@ -0,0 +1,121 @@
+import com.hazelcast.core.HazelcastInstance;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.LineNumberReader;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves many user sessions over a single shared client connection to the cluster.
+ * Users connect by TCP (e.g. `nc localhost <port>`), send their user name as the first line and then use the same
+ * commands as the standalone Client. All sessions share one HazelcastInstance, so there is a single set of connections,
+ * heartbeats and partition table however many users there are - the client multiplexes requests of all sessions
+ * over the same connections and writes those sent at once together.
+ * <p>
+ * A session keeps no user state of its own (everything is in the cluster, see Client), so users can reconnect
+ * to any gateway. Sessions mostly wait for the user or the cluster, so each of them runs on a virtual thread.
+ */
+public class Gateway {
+
+    // Hazel client shared by all sessions
+    private final HazelcastInstance hazelcast;
+    private final boolean nearCacheEnabled;
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("gateway-session-", 0).factory());
+    // Connections of the open sessions, closed when the gateway stops
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    public Gateway(int port, boolean nearCacheEnabled) throws IOException {
+        this.nearCacheEnabled = nearCacheEnabled;
+        this.serverSocket = new ServerSocket(port);
+        this.hazelcast = Client.newHazelcastClient(nearCacheEnabled);
+        System.out.printf("Gateway listening on port %d.%n", serverSocket.getLocalPort());
+    }
+
+    /**
+     * Accept sessions until the gateway is stopped.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket connection = serverSocket.accept();
+                connections.add(connection);
+                sessions.execute(() -> runSession(connection));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed())
+                    System.err.printf("UNEXPECTED: failed to accept a session: %s%n", e);
+            }
+        }
+    }
+
+    private void runSession(Socket connection) {
+        try (connection) {
+            LineNumberReader in = new LineNumberReader(
+                    new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+            PrintStream out = new PrintStream(connection.getOutputStream(), true, StandardCharsets.UTF_8);
+
+            out.println("Enter user name:");
+            String userName = in.readLine();
+            if (userName == null || userName.isBlank())
+                return;
+            userName = userName.trim();
+
+            System.out.printf("Session of %s started (%d open).%n", userName, sessionCount.incrementAndGet());
+            Client client = new Client(userName, hazelcast, nearCacheEnabled, in, out);
+            try {
+                client.run();
+            } finally {
+                client.disconnect();
+                System.out.printf("Session of %s ended (%d open).%n", userName, sessionCount.decrementAndGet());
+            }
+        } catch (IOException e) {
+            // the user has disconnected
+        } catch (Exception e) {
+            System.err.printf("UNEXPECTED: session failed: %s%n", e);
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    /**
+     * Stop accepting sessions, end the open ones and disconnect from the cluster.
+     */
+    public void stop() throws IOException {
+        serverSocket.close();
+        for (Socket connection : connections)
+            connection.close();
+        sessions.close();
+        hazelcast.shutdown();
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--near-cache"))) {
+            System.err.println("Usage: bash run-gateway.sh <port> [--near-cache]");
+            return;
+        }
+
+        try {
+            Gateway gateway = new Gateway(Integer.parseInt(args[0]), args.length == 2);
+            Thread acceptor = new Thread(gateway::serve, "gateway-acceptor");
+            acceptor.start();
+
+            System.out.println("Press enter to exit");
+            System.in.read();
+
+            gateway.stop();
+            acceptor.join();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+
+/**
+ * Result of a user command executed in the cluster.
+ * Holds the name of the document the command was executed on (null if there was none) and the command's own result.
+ */
+public class CommandResult<T> implements IdentifiedDataSerializable {
+
+    private String docName;
+    private T value;
+
+    public CommandResult() {
+    }
+
+    public CommandResult(String docName, T value) {
+        this.docName = docName;
+        this.value = value;
+    }
+
+    public String getDocName() {
+        return docName;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeObject(value);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        value = in.readObject();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMAND_RESULT;
+    }
+}
@@ -1,20 +1,64 @@
 package common;
 
-import java.io.Serializable;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
 import java.util.Date;
 
-public class Comment implements Serializable {
+public class Comment implements IdentifiedDataSerializable {
 
     private String text;
     private String author;
     private Date createdAt;
 
+    public Comment() {
+    }
+
     public Comment(String text, String author) {
         this.text = text;
         this.author = author;
         this.createdAt = new Date(System.currentTimeMillis());
     }
 
+    public String getText() {
+        return text;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(text);
+        out.writeString(author);
+        out.writeLong(createdAt.getTime());
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        text = in.readString();
+        author = in.readString();
+        createdAt = new Date(in.readLong());
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMENT;
+    }
+
     @Override
     public String toString() {
         return " --- COMMENT ---\n" +
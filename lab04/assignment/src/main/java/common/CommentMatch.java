@@ -0,0 +1,56 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+
+/**
+ * A comment found by a comment query, with the name of the document it belongs to.
+ */
+public class CommentMatch implements IdentifiedDataSerializable {
+
+    private String docName;
+    private Comment comment;
+
+    public CommentMatch() {
+    }
+
+    public CommentMatch(String docName, Comment comment) {
+        this.docName = docName;
+        this.comment = comment;
+    }
+
+    public String getDocName() {
+        return docName;
+    }
+
+    public Comment getComment() {
+        return comment;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        comment.writeData(out);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        comment = new Comment();
+        comment.readData(in);
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMENT_MATCH;
+    }
+}
@@ -0,0 +1,64 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A page of comments of a document, starting at given offset (index of the first comment in the whole log).
+ */
+public class CommentPage implements IdentifiedDataSerializable {
+
+    private int totalCount;
+    private int offset;
+    private List<Comment> comments;
+
+    public CommentPage() {
+    }
+
+    public CommentPage(int totalCount, int offset, List<Comment> comments) {
+        this.totalCount = totalCount;
+        this.offset = offset;
+        this.comments = comments;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public List<Comment> getComments() {
+        return comments;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(totalCount);
+        out.writeInt(offset);
+        out.writeObject(comments);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        totalCount = in.readInt();
+        offset = in.readInt();
+        comments = in.readObject();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMENT_PAGE;
+    }
+}
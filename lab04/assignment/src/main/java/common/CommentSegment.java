@@ -0,0 +1,58 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A single fixed-size segment of the append-only comment log of a document.
+ * Comment number n of the document is stored as comment n % COMMENT_SEGMENT_SIZE of segment n / COMMENT_SEGMENT_SIZE.
+ */
+public class CommentSegment implements IdentifiedDataSerializable {
+
+    private List<Comment> comments = new ArrayList<>();
+
+    public CommentSegment() {
+    }
+
+    public List<Comment> getComments() {
+        return comments;
+    }
+
+    public void append(Comment comment) {
+        comments.add(comment);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(comments.size());
+        for (Comment comment : comments)
+            comment.writeData(out);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        comments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Comment comment = new Comment();
+            comment.readData(in);
+            comments.add(comment);
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMENT_SEGMENT;
+    }
+}
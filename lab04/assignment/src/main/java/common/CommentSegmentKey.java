@@ -0,0 +1,83 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.partition.PartitionAware;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Key of a single segment of the comment log of a document (DocComments).
+ * Partitioned by the document name, so all segments are co-located with the rest of the document's data.
+ */
+public class CommentSegmentKey implements PartitionAware<String>, IdentifiedDataSerializable {
+
+    private String docName;
+    private int index;
+
+    public CommentSegmentKey() {
+    }
+
+    public CommentSegmentKey(String docName, int index) {
+        this.docName = docName;
+        this.index = index;
+    }
+
+    public String getDocName() {
+        return docName;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String getPartitionKey() {
+        return docName;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeInt(index);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        index = in.readInt();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMENT_SEGMENT_KEY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        CommentSegmentKey other = (CommentSegmentKey) o;
+        return index == other.index && Objects.equals(docName, other.docName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(docName, index);
+    }
+
+    @Override
+    public String toString() {
+        return docName + "#" + index;
+    }
+}
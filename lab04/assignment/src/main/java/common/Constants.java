@@ -2,10 +2,41 @@ package common;
 
 public class Constants {
     public static final String DEFAULT_EXECUTOR = "default";
+    public static final String FETCH_EXECUTOR = "documentFetches";
+    public static final String COLD_FETCH_EXECUTOR = "coldDocumentFetches";
+    public static final String USER_COMMAND_EXECUTOR = "userCommands";
+    public static final String PROCESSOR_OFFLOAD_EXECUTOR = "offloadedProcessors";
+    public static final String WARM_UP_EXECUTOR = "warmUp";
+    public static final String GENERATION_EXECUTOR = "documentGenerations";
+    public static final String PREFETCH_EXECUTOR = "documentPrefetches";
+
+    // Member attribute holding the role of the member (see hazel.MemberRole)
+    public static final String MEMBER_ROLE_ATTRIBUTE = "doc.role";
 
     public static final String DOC_CACHE_MAP = "DocumentCache";
     public static final String DOC_VIEWS_MAP = "DocViewCounts";
     public static final String DOC_COMMS_MAP = "DocComments";
+    public static final String DOC_COMM_COUNTS_MAP = "DocCommentCounts";
     public static final String LAST_DOCS_MAP = "LastViewedDoc";
     public static final String FAVE_DOCS_MAP = "FavouriteDocs";
+    public static final String DOC_CHUNKS_MAP = "DocumentChunks";
+    public static final String DOC_UPDATES_MAP = "DocUpdates";
+    public static final String DOC_FOLLOWERS_MAP = "DocFollowers";
+    public static final String GENERATOR_LOADS_MAP = "GeneratorLoads";
+    public static final String TASK_REPLIES_MAP = "TaskReplies";
+
+    // Number of comments in a single segment of the comment log of a document
+    public static final int COMMENT_SEGMENT_SIZE = 32;
+    // Documents of at least this many bytes (UTF-8) are stored compressed
+    public static final int DOCUMENT_COMPRESSION_THRESHOLD = 1024;
+    // Documents larger than this (encoded) are stored in chunks of this size
+    public static final int DOCUMENT_CHUNK_SIZE = 64 * 1024;
+    // Number of chunks a reader of a chunked document fetches ahead
+    public static final int DOCUMENT_CHUNK_READAHEAD = 4;
+    // Number of most viewed documents kept for every partition, the most a top viewed query can return
+    public static final int TOP_VIEWED_CAPACITY = 100;
+    // Tasks done after returning (e.g., fetches waiting for a generation) fail if they get no reply in this long (see hazel.TaskReplies)
+    public static final int TASK_REPLY_TIMEOUT_SECONDS = 120;
+    // Number of documents warmed up by a single task (all of them are generated at once)
+    public static final int WARM_UP_CHUNK_SIZE = 32;
 }
@@ -0,0 +1,92 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.partition.PartitionAware;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Key of a single chunk of a large document (DocumentChunks).
+ * Chunks of one stored copy of the document share its chunk set id, so chunks of two copies stored concurrently never mix.
+ * Partitioned by the document name, so all chunks are co-located with the rest of the document's data.
+ */
+public class DocChunkKey implements PartitionAware<String>, IdentifiedDataSerializable {
+
+    private String docName;
+    private long chunkSetId;
+    private int index;
+
+    public DocChunkKey() {
+    }
+
+    public DocChunkKey(String docName, long chunkSetId, int index) {
+        this.docName = docName;
+        this.chunkSetId = chunkSetId;
+        this.index = index;
+    }
+
+    public String getDocName() {
+        return docName;
+    }
+
+    public long getChunkSetId() {
+        return chunkSetId;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String getPartitionKey() {
+        return docName;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeLong(chunkSetId);
+        out.writeInt(index);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        chunkSetId = in.readLong();
+        index = in.readInt();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.DOC_CHUNK_KEY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        DocChunkKey other = (DocChunkKey) o;
+        return chunkSetId == other.chunkSetId && index == other.index && Objects.equals(docName, other.docName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(docName, chunkSetId, index);
+    }
+
+    @Override
+    public String toString() {
+        return docName + "@" + Long.toHexString(chunkSetId) + "#" + index;
+    }
+}
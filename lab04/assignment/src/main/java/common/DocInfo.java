@@ -0,0 +1,55 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+
+/**
+ * View count and a page of comments of a single document.
+ */
+public class DocInfo implements IdentifiedDataSerializable {
+
+    private int viewCount;
+    private CommentPage comments;
+
+    public DocInfo() {
+    }
+
+    public DocInfo(int viewCount, CommentPage comments) {
+        this.viewCount = viewCount;
+        this.comments = comments;
+    }
+
+    public int getViewCount() {
+        return viewCount;
+    }
+
+    public CommentPage getComments() {
+        return comments;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(viewCount);
+        out.writeObject(comments);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        viewCount = in.readInt();
+        comments = in.readObject();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.DOC_INFO;
+    }
+}
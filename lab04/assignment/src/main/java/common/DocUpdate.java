@@ -0,0 +1,100 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+
+/**
+ * Live update of a document pushed to its followers (see hazel.DocumentUpdates) - either a new view count
+ * or a new comment together with the new comment count.
+ */
+public class DocUpdate implements IdentifiedDataSerializable {
+
+    private String docName;
+    private int viewCount;
+    // null for view count updates
+    private Comment comment;
+    private int commentCount;
+
+    public DocUpdate() {
+    }
+
+    public static DocUpdate views(String docName, int viewCount) {
+        DocUpdate update = new DocUpdate();
+        update.docName = docName;
+        update.viewCount = viewCount;
+        return update;
+    }
+
+    public static DocUpdate comment(String docName, Comment comment, int commentCount) {
+        DocUpdate update = new DocUpdate();
+        update.docName = docName;
+        update.comment = comment;
+        update.commentCount = commentCount;
+        return update;
+    }
+
+    public String getDocName() {
+        return docName;
+    }
+
+    public boolean isComment() {
+        return comment != null;
+    }
+
+    public int getViewCount() {
+        return viewCount;
+    }
+
+    public Comment getComment() {
+        return comment;
+    }
+
+    public int getCommentCount() {
+        return commentCount;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeBoolean(comment != null);
+        if (comment != null) {
+            comment.writeData(out);
+            out.writeInt(commentCount);
+        }
+        else
+            out.writeInt(viewCount);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        if (in.readBoolean()) {
+            comment = new Comment();
+            comment.readData(in);
+            commentCount = in.readInt();
+        }
+        else
+            viewCount = in.readInt();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.DOC_UPDATE;
+    }
+
+    @Override
+    public String toString() {
+        return isComment()
+                ? String.format("%s: comment #%d by %s: %s", docName, commentCount, comment.getAuthor(), comment.getText())
+                : String.format("%s: %d views", docName, viewCount);
+    }
+}
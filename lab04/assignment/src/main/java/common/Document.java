@@ -1,16 +1,167 @@
 package common;
 
-import java.io.Serializable;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * Represents some kind of document that can be displayed to the user.
+ * The content is kept encoded - documents of at least DOCUMENT_COMPRESSION_THRESHOLD bytes are deflated,
+ * smaller ones are plain UTF-8 (compressing them would save next to nothing). The encoded form is what is stored,
+ * backed up and sent to clients, only getContent decodes it, so members never decompress documents.
+ *
+ * Documents larger than DOCUMENT_CHUNK_SIZE (encoded) are stored in chunks of the encoded content (DocumentChunks)
+ * and only their manifest - codec, number of chunks and chunk set id, with no data - is a Document.
+ * Content of such document is read progressively by AsyncDocClient.openContent (see hazel.DocumentStorage).
  */
-public class Document implements Serializable {
-	private String content;
+public class Document implements IdentifiedDataSerializable {
+	public static final byte RAW = 0;
+	public static final byte DEFLATE = 1;
+
+	private byte codec;
+	private byte[] data;
+	// Number of chunks of the encoded content, 0 if the content is in data
+	private int chunkCount;
+	// Identifies the chunks of this copy of the document (see DocChunkKey)
+	private long chunkSetId;
+	// Decoded content, so that a document displayed repeatedly is only decompressed once
+	private transient String content;
+
+	public Document() {
+	}
 	public Document(String content) {
-	    this.content = content;
+		byte[] utf8 = content.getBytes(StandardCharsets.UTF_8);
+		if (utf8.length >= Constants.DOCUMENT_COMPRESSION_THRESHOLD) {
+			this.codec = DEFLATE;
+			this.data = deflate(utf8);
+		}
+		else {
+			this.codec = RAW;
+			this.data = utf8;
+		}
+		this.content = content;
+	}
+	/**
+	 * Document of already encoded content (e.g., as read back from disk).
+	 */
+	public Document(byte codec, byte[] data) {
+		if (codec != RAW && codec != DEFLATE)
+			throw new IllegalArgumentException("Unknown document codec " + codec);
+		this.codec = codec;
+		this.data = data;
+	}
+	/**
+	 * Manifest of a document stored in chunks.
+	 */
+	public static Document chunked(byte codec, int chunkCount, long chunkSetId) {
+		if (chunkCount <= 0)
+			throw new IllegalArgumentException("Chunked document must have some chunks");
+		Document document = new Document(codec, new byte[0]);
+		document.chunkCount = chunkCount;
+		document.chunkSetId = chunkSetId;
+		return document;
 	}
+	/**
+	 * Decoded content of a document which is not chunked (chunked ones are read by AsyncDocClient.openContent).
+	 */
 	public String getContent() {
-	    return content;
+		if (isChunked())
+			throw new IllegalStateException("Document is stored in chunks, its content has to be streamed");
+		if (content == null)
+			content = new String(codec == DEFLATE ? inflate(data) : data, StandardCharsets.UTF_8);
+		return content;
+	}
+	public byte getCodec() {
+		return codec;
+	}
+	/**
+	 * Encoded content, the array is not copied and must not be modified.
+	 */
+	public byte[] getData() {
+		return data;
+	}
+	public boolean isChunked() {
+		return chunkCount > 0;
+	}
+	public int getChunkCount() {
+		return chunkCount;
+	}
+	public long getChunkSetId() {
+		return chunkSetId;
+	}
+
+	private static byte[] deflate(byte[] bytes) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(bytes);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2);
+			byte[] buffer = new byte[8192];
+			while (!deflater.finished())
+				out.write(buffer, 0, deflater.deflate(buffer));
+			return out.toByteArray();
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	private static byte[] inflate(byte[] bytes) {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(bytes);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+			byte[] buffer = new byte[8192];
+			while (!inflater.finished()) {
+				int inflated = inflater.inflate(buffer);
+				if (inflated == 0 && inflater.needsInput())
+					throw new DataFormatException("Truncated document");
+				out.write(buffer, 0, inflated);
+			}
+			return out.toByteArray();
+		}
+		catch (DataFormatException e) {
+			throw new UncheckedIOException(new IOException("Corrupted document", e));
+		}
+		finally {
+			inflater.end();
+		}
+	}
+
+	@Override
+	public void writeData(ObjectDataOutput out) throws IOException {
+		out.writeByte(codec);
+		out.writeByteArray(data);
+		out.writeInt(chunkCount);
+		if (chunkCount > 0)
+			out.writeLong(chunkSetId);
+	}
+
+	@Override
+	public void readData(ObjectDataInput in) throws IOException {
+		codec = in.readByte();
+		data = in.readByteArray();
+		chunkCount = in.readInt();
+		if (chunkCount > 0)
+			chunkSetId = in.readLong();
+	}
+
+	@Override
+	public int getFactoryId() {
+		return DocSerializableFactory.FACTORY_ID;
+	}
+
+	@Override
+	public int getClassId() {
+		return DocSerializableFactory.DOCUMENT;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ordered set of favourite document names of a user, kept in order of adding.
+ * Stored as a circular doubly linked list over hash maps, so membership, adding, removing and finding the following
+ * document are all O(1) regardless of the number of favourites.
+ * Also remembers the cursor - the favourite shown last when cycling through them.
+ */
+public class Favourites implements IdentifiedDataSerializable {
+
+    // document name -> following / preceding document name (the last one is followed by the first one)
+    private final Map<String, String> next = new HashMap<>();
+    private final Map<String, String> prev = new HashMap<>();
+    // First favourite, null if there are none
+    private String head;
+    // Favourite shown last by cycling, null if none was shown yet
+    private String cursor;
+
+    public Favourites() {
+    }
+
+    public int size() {
+        return next.size();
+    }
+
+    public boolean contains(String docName) {
+        return next.containsKey(docName);
+    }
+
+    /**
+     * Add the document to the end, return false if it already is a favourite.
+     */
+    public boolean add(String docName) {
+        if (contains(docName))
+            return false;
+
+        if (head == null) {
+            head = docName;
+            next.put(docName, docName);
+            prev.put(docName, docName);
+            return true;
+        }
+
+        String tail = prev.get(head);
+        next.put(tail, docName);
+        prev.put(docName, tail);
+        next.put(docName, head);
+        prev.put(head, docName);
+        return true;
+    }
+
+    /**
+     * Remove the document, return false if it is not a favourite.
+     * If the cursor pointed to it, it is moved back, so that cycling continues with the document following the removed one.
+     */
+    public boolean remove(String docName) {
+        if (!contains(docName))
+            return false;
+
+        String before = prev.remove(docName);
+        String after = next.remove(docName);
+
+        if (next.isEmpty()) {
+            head = null;
+            cursor = null;
+            return true;
+        }
+
+        next.put(before, after);
+        prev.put(after, before);
+        if (docName.equals(head))
+            head = after;
+        if (docName.equals(cursor))
+            cursor = before;
+        return true;
+    }
+
+    /**
+     * Move the cursor to the favourite following the given document (if it is a favourite), otherwise to the one
+     * following the cursor, or to the first favourite. Returns the new cursor, null if there are no favourites.
+     */
+    public String advance(String docName) {
+        if (head == null)
+            return null;
+
+        if (contains(docName))
+            cursor = next.get(docName);
+        else if (cursor != null && contains(cursor))
+            cursor = next.get(cursor);
+        else
+            cursor = head;
+
+        return cursor;
+    }
+
+    /**
+     * Favourite following the given one (the one advance would move to), null if it is not a favourite.
+     */
+    public String following(String docName) {
+        return next.get(docName);
+    }
+
+    /**
+     * Set the cursor directly, e.g. to the result of advance on another replica.
+     */
+    public void setCursor(String docName) {
+        cursor = docName;
+    }
+
+    /**
+     * Get up to `limit` favourites following the given one (from the first one if after is null).
+     * Returns an empty page if after is no longer a favourite, so a paging client cannot loop.
+     */
+    public List<String> page(String after, int limit) {
+        List<String> page = new ArrayList<>();
+        if (head == null)
+            return page;
+
+        String current;
+        if (after == null)
+            current = head;
+        else if (!contains(after))
+            return page;
+        else if (next.get(after).equals(head))
+            return page; // after is the last one
+        else
+            current = next.get(after);
+
+        while (page.size() < limit) {
+            page.add(current);
+            current = next.get(current);
+            if (current.equals(head))
+                break; // wrapped around
+        }
+        return page;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(size());
+        String current = head;
+        for (int i = 0; i < size(); i++) {
+            out.writeString(current);
+            current = next.get(current);
+        }
+        out.writeString(cursor);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++)
+            add(in.readString());
+        cursor = in.readString();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.FAVOURITES;
+    }
+}
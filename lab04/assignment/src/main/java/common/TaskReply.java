@@ -0,0 +1,68 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+
+/**
+ * Outcome of a task which completed after returning (see hazel.TaskReplies) -
+ * either the result of the task (e.g., the fetched document, null if the fetcher didn't ask for it) or its failure.
+ */
+public class TaskReply implements IdentifiedDataSerializable {
+
+    private Object value;
+    // null if the task succeeded
+    private String failure;
+
+    public TaskReply() {
+    }
+
+    public static TaskReply of(Object value) {
+        TaskReply reply = new TaskReply();
+        reply.value = value;
+        return reply;
+    }
+
+    public static TaskReply failed(String failure) {
+        TaskReply reply = new TaskReply();
+        reply.failure = failure;
+        return reply;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeObject(value);
+        out.writeString(failure);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        value = in.readObject();
+        failure = in.readString();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.TASK_REPLY;
+    }
+}
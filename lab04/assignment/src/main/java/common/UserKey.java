@@ -0,0 +1,75 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.partition.PartitionAware;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Key of all user related maps (LastViewedDoc and FavouriteDocs).
+ * Partitioned by the user name only, so all data of a single user are guaranteed to live in the same partition
+ * and can be accessed locally by a single operation on the owning member.
+ */
+public class UserKey implements PartitionAware<String>, IdentifiedDataSerializable {
+
+    private String name;
+
+    public UserKey() {
+    }
+
+    public UserKey(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getPartitionKey() {
+        return name;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(name);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        name = in.readString();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.USER_KEY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        return Objects.equals(name, ((UserKey) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,99 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Most viewed documents with their view counts, ordered from the most viewed one (ties by name).
+ */
+public class ViewRanking implements IdentifiedDataSerializable {
+
+    private List<String> docNames;
+    private List<Integer> viewCounts;
+
+    public ViewRanking() {
+        this(new ArrayList<>(), new ArrayList<>());
+    }
+
+    private ViewRanking(List<String> docNames, List<Integer> viewCounts) {
+        this.docNames = docNames;
+        this.viewCounts = viewCounts;
+    }
+
+    /**
+     * Ranking of given (document, views) pairs, only the `limit` most viewed of them are kept.
+     */
+    public static ViewRanking of(Collection<? extends Map.Entry<String, Integer>> entries, int limit) {
+        List<Map.Entry<String, Integer>> sorted = new ArrayList<>(entries);
+        sorted.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+
+        ViewRanking ranking = new ViewRanking();
+        for (Map.Entry<String, Integer> entry : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            ranking.docNames.add(entry.getKey());
+            ranking.viewCounts.add(entry.getValue());
+        }
+        return ranking;
+    }
+
+    /**
+     * Merge rankings of disjoint sets of documents (e.g. of different members), keeping the `limit` most viewed.
+     */
+    public static ViewRanking merge(Collection<ViewRanking> rankings, int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (ViewRanking ranking : rankings)
+            for (int i = 0; i < ranking.size(); i++)
+                entries.add(Map.entry(ranking.getDocName(i), ranking.getViewCount(i)));
+        return of(entries, limit);
+    }
+
+    public int size() {
+        return docNames.size();
+    }
+
+    public String getDocName(int rank) {
+        return docNames.get(rank);
+    }
+
+    public int getViewCount(int rank) {
+        return viewCounts.get(rank);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(docNames.size());
+        for (int i = 0; i < docNames.size(); i++) {
+            out.writeString(docNames.get(i));
+            out.writeInt(viewCounts.get(i));
+        }
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        docNames = new ArrayList<>(size);
+        viewCounts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            docNames.add(in.readString());
+            viewCounts.add(in.readInt());
+        }
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.VIEW_RANKING;
+    }
+}
@@ -0,0 +1,76 @@
+package common;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+
+/**
+ * Progress of a document warm-up - how many documents were processed, how many of them had to be generated
+ * (the rest was already cached) and how many failed to generate.
+ */
+public class WarmUpResult implements IdentifiedDataSerializable {
+
+    private int done;
+    private int generated;
+    private int failed;
+
+    public WarmUpResult() {
+    }
+
+    public WarmUpResult(int done, int generated, int failed) {
+        this.done = done;
+        this.generated = generated;
+        this.failed = failed;
+    }
+
+    public int getDone() {
+        return done;
+    }
+
+    public int getGenerated() {
+        return generated;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Sum of this and the other result.
+     */
+    public WarmUpResult plus(WarmUpResult other) {
+        return new WarmUpResult(done + other.done, generated + other.generated, failed + other.failed);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(done);
+        out.writeInt(generated);
+        out.writeInt(failed);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        done = in.readInt();
+        generated = in.readInt();
+        failed = in.readInt();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.WARM_UP_RESULT;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d documents (%d generated, %d already cached, %d failed)", done, generated, done - generated - failed, failed);
+    }
+}
@@ -0,0 +1,395 @@
+package hazel;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.cluster.memberselector.MemberSelectors;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.MultiExecutionCallback;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.map.listener.EntryUpdatedListener;
+import common.*;
+import hazel.command.*;
+import hazel.processor.*;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.InflaterInputStream;
+
+import static common.Constants.*;
+
+/**
+ * Asynchronous client side of all document operations of a single user.
+ * Every operation is submitted without waiting for the result and returns a CompletionStage, so a single client can have
+ * many commands in flight and independent reads run in parallel.
+ * <p>
+ * The number of operations in flight is limited by maxInFlight, so a fast producer can't flood the cluster - operations
+ * over the limit are queued and started in order as those in flight complete, nobody waits for a free slot
+ * (queued operations are only held in memory of the client). Stages complete on hazelcast threads, dependent actions
+ * should not block, but may start new operations.
+ */
+public class AsyncDocClient {
+
+    private final HazelcastInstance hazelcast;
+    private final String userName;
+    // Whether documents are read through the near cache (configured by the owner of the hazelcast instance)
+    private final boolean nearCacheEnabled;
+    private final int maxInFlight;
+    // Operations in flight and operations waiting for a free slot, both guarded by waiting
+    private int inFlight;
+    private final Queue<BooleanSupplier> waiting = new ArrayDeque<>();
+    private final TaskReplies taskReplies;
+
+    public AsyncDocClient(HazelcastInstance hazelcast, String userName, boolean nearCacheEnabled, int maxInFlight) {
+        this.hazelcast = hazelcast;
+        this.userName = userName;
+        this.nearCacheEnabled = nearCacheEnabled;
+        this.maxInFlight = maxInFlight;
+        // listen to replies of cold fetches and user commands right away, not when the first of them is in flight
+        this.taskReplies = TaskReplies.of(hazelcast);
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * Fetch the document, which also selects it for the user and increments its view count.
+     * With near cache, documents already cached are read locally and only the view itself is sent to the cluster -
+     * counted and selected by two processors, which never touch the document (nor wait for it, should the cluster
+     * have evicted it meanwhile). Such views are counted at once, even if the members combine views of their fetches.
+     */
+    public CompletionStage<Document> fetchDocument(String docName) {
+        return limited(() -> {
+            DocKey docKey = new DocKey(docName);
+            if (!nearCacheEnabled)
+                return fetchOnOwner(docName, docKey);
+
+            return docMap().getAsync(docKey).thenCompose(cached -> {
+                if (cached == null)
+                    return fetchOnOwner(docName, docKey);
+
+                IMap<DocKey, Integer> viewMap = hazelcast.getMap(DOC_VIEWS_MAP);
+                IMap<UserKey, String> lastDocMap = hazelcast.getMap(LAST_DOCS_MAP);
+                CompletionStage<Boolean> viewed = viewMap.submitToKey(docKey, new IncrementViewsProcessor(docName));
+                CompletionStage<Boolean> selected = lastDocMap.submitToKey(new UserKey(userName), new SetUserLastViewedProcessor(userName, docName));
+                return viewed.thenCombine(selected, (viewCounted, lastChanged) -> cached);
+            });
+        });
+    }
+
+    /**
+     * Fetch the document as cached-only first and only if it is not cached yet on COLD_FETCH_EXECUTOR,
+     * so fetches of cached documents never queue behind fetches waiting for generations.
+     * The document of a cold fetch comes as a reply once generated (see TaskReplies).
+     */
+    private CompletionStage<Document> fetchOnOwner(String docName, DocKey docKey) {
+        return submitToKeyOwner(FETCH_EXECUTOR, FetchDocTask.cachedOnly(userName, docName), docKey)
+                .thenCompose(document -> document != null
+                        ? CompletableFuture.completedFuture(document)
+                        : taskReplies.fetch(COLD_FETCH_EXECUTOR, userName, docName, true));
+    }
+
+    /**
+     * Execute a user command on the owner of the user key, so that it costs a single round trip
+     * (and a reply, if the command has to wait, see UserCommandTask).
+     */
+    public <R> CompletionStage<CommandResult<R>> executeUserCommand(UserCommandTask<R> task) {
+        return limited(() -> taskReplies.submitToKeyOwner(USER_COMMAND_EXECUTOR, task::replyingTo, new UserKey(userName)));
+    }
+
+    public CompletionStage<CommandResult<Boolean>> addFavorite() {
+        return executeUserCommand(new AddFavoriteTask(userName));
+    }
+
+    public CompletionStage<CommandResult<Boolean>> removeFavorite() {
+        return executeUserCommand(new RemoveFavoriteTask(userName));
+    }
+
+    public CompletionStage<CommandResult<Boolean>> comment(String text) {
+        return executeUserCommand(new CommentTask(userName, new Comment(text, userName)));
+    }
+
+    /**
+     * View count and latest comments of the last viewed document.
+     */
+    public CompletionStage<CommandResult<DocInfo>> info(int commentCount) {
+        return executeUserCommand(new InfoTask(userName, commentCount));
+    }
+
+    /**
+     * Select and fetch the next favourite document.
+     * Returns result with the next document's name and the document,
+     * or with the last viewed document's name and no document if the user has no favourites.
+     */
+    public CompletionStage<CommandResult<Document>> nextFavorite() {
+        if (!nearCacheEnabled)
+            return executeUserCommand(new NextFavoriteTask(userName));
+
+        // The document itself is not sent back and is read from the near cache instead
+        return executeUserCommand(new SelectNextFavoriteTask(userName))
+                .thenCompose(result -> {
+                    if (!Boolean.TRUE.equals(result.getValue()))
+                        return CompletableFuture.completedFuture(new CommandResult<Document>(result.getDocName(), null));
+                    return docMap().getAsync(new DocKey(result.getDocName()))
+                            .thenApply(document -> new CommandResult<>(result.getDocName(), document));
+                });
+    }
+
+    /**
+     * Add given document to favourites of the user (regardless of the last viewed document).
+     * Returns false if it already is a favourite.
+     */
+    public CompletionStage<Boolean> addFavorite(String docName) {
+        IMap<UserKey, Favourites> faveMap = hazelcast.getMap(FAVE_DOCS_MAP);
+        return limited(() -> faveMap.submitToKey(new UserKey(userName), new AddToFavesProcessor(userName, docName)));
+    }
+
+    /**
+     * Add a comment to given document (regardless of the last viewed document).
+     */
+    public CompletionStage<Boolean> addComment(String docName, Comment comment) {
+        return limited(() -> CommentLog.append(hazelcast, docName, comment));
+    }
+
+    /**
+     * Up to `limit` favourite document names following the given one (from the first one if null).
+     */
+    public CompletionStage<List<String>> favoritesPage(String after, int limit) {
+        IMap<UserKey, Favourites> faveMap = hazelcast.getMap(FAVE_DOCS_MAP);
+        return limited(() -> faveMap.submitToKey(new UserKey(userName), new GetFavesPageProcessor(userName, after, limit)));
+    }
+
+    /**
+     * Follow live updates of given document (new comments and view counts, see DocumentUpdates) until unfollowed.
+     * The listener is called on a hazelcast event thread, in the order of publishing. View counts are only sent
+     * every doc.updates.views-millis, the same count may come more than once.
+     * The follower is counted in DOC_FOLLOWERS_MAP, updates of documents nobody follows aren't published at all.
+     */
+    public UUID follow(String docName, Consumer<DocUpdate> listener) {
+        DocKey docKey = new DocKey(docName);
+        IMap<DocKey, Integer> followersMap = hazelcast.getMap(DOC_FOLLOWERS_MAP);
+        followersMap.executeOnKey(docKey, new FollowProcessor(docName, 1));
+        IMap<DocKey, DocUpdate> updatesMap = hazelcast.getMap(DOC_UPDATES_MAP);
+        return updatesMap.addEntryListener(new DocUpdateListener(listener), docKey, true);
+    }
+
+    /**
+     * Stop following the document, registration being the result of follow.
+     */
+    public void unfollow(String docName, UUID registration) {
+        hazelcast.getMap(DOC_UPDATES_MAP).removeEntryListener(registration);
+        IMap<DocKey, Integer> followersMap = hazelcast.getMap(DOC_FOLLOWERS_MAP);
+        followersMap.executeOnKey(new DocKey(docName), new FollowProcessor(docName, -1));
+    }
+
+    /**
+     * The `limit` most viewed documents (at most TOP_VIEWED_CAPACITY), merged from the leaderboards of all members
+     * (see TopViewedDocuments).
+     */
+    public CompletionStage<ViewRanking> topViewed(int limit) {
+        return limited(() -> {
+            CompletableFuture<ViewRanking> future = new CompletableFuture<>();
+            hazelcast.getExecutorService(DEFAULT_EXECUTOR).submitToAllMembers(new TopViewedTask(limit), new MultiExecutionCallback() {
+                @Override
+                public void onResponse(Member member, Object value) {
+                }
+
+                @Override
+                public void onComplete(Map<Member, Object> values) {
+                    List<ViewRanking> rankings = new ArrayList<>();
+                    for (Object value : values.values()) {
+                        if (!(value instanceof ViewRanking)) {
+                            future.completeExceptionally(value instanceof Throwable ? (Throwable) value
+                                    : new IllegalStateException("Unexpected ranking " + value));
+                            return;
+                        }
+                        rankings.add((ViewRanking) value);
+                    }
+                    future.complete(ViewRanking.merge(rankings, limit));
+                }
+            });
+            return future;
+        });
+    }
+
+    /**
+     * The `limit` latest comments of all documents by given author (any if null) created within [since, until)
+     * (unbounded if null), latest first. Runs as an indexed query on all data members, each sends only its `limit`
+     * latest matches (see CommentQueryTask).
+     * Fails with IllegalArgumentException if neither the author nor the time window is given.
+     */
+    public CompletionStage<List<CommentMatch>> findComments(String author, Date since, Date until, int limit) {
+        if (author == null && since == null && until == null)
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Comment query needs an author or a time window"));
+
+        CommentQueryTask task = new CommentQueryTask(new CommentQueryProjection(author, since, until), limit);
+        return limited(() -> {
+            CompletableFuture<List<CommentMatch>> future = new CompletableFuture<>();
+            hazelcast.getExecutorService(DEFAULT_EXECUTOR).submitToMembers(task, MemberSelectors.DATA_MEMBER_SELECTOR, new MultiExecutionCallback() {
+                @Override
+                public void onResponse(Member member, Object value) {
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void onComplete(Map<Member, Object> values) {
+                    List<CommentMatch> matches = new ArrayList<>();
+                    for (Object value : values.values()) {
+                        if (!(value instanceof List)) {
+                            future.completeExceptionally(value instanceof Throwable ? (Throwable) value
+                                    : new IllegalStateException("Unexpected comment matches " + value));
+                            return;
+                        }
+                        matches.addAll((List<CommentMatch>) value);
+                    }
+                    future.complete(CommentQueryProjection.latest(matches, limit));
+                }
+            });
+            return future;
+        });
+    }
+
+    /**
+     * Reader of the content of a fetched document.
+     * Content of chunked documents (see DocumentStorage) is fetched progressively as it is read, with DOCUMENT_CHUNK_READAHEAD
+     * chunks requested ahead, so the first characters are available long before the whole document is transferred.
+     * Chunk reads are not limited by maxInFlight.
+     */
+    public Reader openContent(String docName, Document document) {
+        if (!document.isChunked())
+            return new StringReader(document.getContent());
+
+        IMap<DocChunkKey, byte[]> chunkMap = hazelcast.getMap(DOC_CHUNKS_MAP);
+        InputStream data = new ChunkedDocumentInputStream(chunkMap, docName, document, DOCUMENT_CHUNK_READAHEAD);
+        if (document.getCodec() == Document.DEFLATE)
+            data = new InflaterInputStream(data);
+        return new InputStreamReader(data, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Make sure all given documents are cached (see DocumentWarmUp), reporting the progress as it goes.
+     * A warm-up consists of many tasks running in the cluster, it is not limited by maxInFlight.
+     */
+    public CompletionStage<WarmUpResult> warmUp(Collection<String> docNames, Consumer<WarmUpResult> progress) {
+        return DocumentWarmUp.warmUp(hazelcast, docNames, progress);
+    }
+
+    private IMap<DocKey, Document> docMap() {
+        return hazelcast.getMap(DOC_CACHE_MAP);
+    }
+
+    private <T> CompletionStage<T> submitToKeyOwner(String executorName, Callable<T> task, Object key) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        hazelcast.getExecutorService(executorName).submitToKeyOwner(task, key, new ExecutionCallback<T>() {
+            @Override
+            public void onResponse(T response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Start the operation once there are less than maxInFlight operations in flight, queueing it until then.
+     */
+    private <T> CompletionStage<T> limited(Supplier<CompletionStage<T>> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        BooleanSupplier start = () -> start(operation, result);
+        synchronized (waiting) {
+            if (inFlight >= maxInFlight) {
+                waiting.add(start);
+                return result;
+            }
+            inFlight++;
+        }
+        if (!start.getAsBoolean())
+            release();
+        return result;
+    }
+
+    /**
+     * Start the operation in a slot already taken for it, returns false if it failed to start (the slot is not used).
+     */
+    private <T> boolean start(Supplier<CompletionStage<T>> operation, CompletableFuture<T> result) {
+        CompletionStage<T> stage;
+        try {
+            stage = operation.get();
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return false;
+        }
+        stage.whenComplete((value, t) -> {
+            // Free the slot first, so that dependent actions of the result find it free
+            release();
+            if (t != null)
+                result.completeExceptionally(t);
+            else
+                result.complete(value);
+        });
+        return true;
+    }
+
+    /**
+     * Pass a freed slot to the next waiting operation (or free it if none is waiting).
+     */
+    private void release() {
+        while (true) {
+            BooleanSupplier next;
+            synchronized (waiting) {
+                next = waiting.poll();
+                if (next == null) {
+                    inFlight--;
+                    return;
+                }
+            }
+            if (next.getAsBoolean())
+                return;
+        }
+    }
+
+    /**
+     * Passes updates set into DOC_UPDATES_MAP on, the first one of a document (or the first after expiry) is an addition.
+     */
+    private static class DocUpdateListener implements EntryAddedListener<DocKey, DocUpdate>, EntryUpdatedListener<DocKey, DocUpdate> {
+
+        private final Consumer<DocUpdate> listener;
+
+        DocUpdateListener(Consumer<DocUpdate> listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void entryAdded(EntryEvent<DocKey, DocUpdate> event) {
+            listener.accept(event.getValue());
+        }
+
+        @Override
+        public void entryUpdated(EntryEvent<DocKey, DocUpdate> event) {
+            listener.accept(event.getValue());
+        }
+    }
+}
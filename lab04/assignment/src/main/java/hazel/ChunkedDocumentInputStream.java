@@ -0,0 +1,112 @@
+package hazel;
+
+import com.hazelcast.map.IMap;
+import common.DocChunkKey;
+import common.Document;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Encoded content of a chunked document (see DocumentStorage), fetched chunk by chunk as it is read.
+ * Up to `readahead` following chunks are requested ahead, so reading rarely waits for the network, while no more than
+ * that is ever held in memory regardless of the size of the document.
+ */
+class ChunkedDocumentInputStream extends InputStream {
+
+    private static final long CHUNK_TIMEOUT_SECONDS = 30;
+
+    private final IMap<DocChunkKey, byte[]> chunkMap;
+    private final String docName;
+    private final Document manifest;
+    private final int readahead;
+    // Chunks requested and not read yet, in order
+    private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private int nextIndex;
+    private byte[] chunk = new byte[0];
+    private int position;
+
+    ChunkedDocumentInputStream(IMap<DocChunkKey, byte[]> chunkMap, String docName, Document manifest, int readahead) {
+        this.chunkMap = chunkMap;
+        this.docName = docName;
+        this.manifest = manifest;
+        this.readahead = Math.max(1, readahead);
+        requestAhead();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill())
+            return -1;
+        return chunk[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+        if (!fill())
+            return -1;
+        int read = Math.min(length, chunk.length - position);
+        System.arraycopy(chunk, position, buffer, offset, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return chunk.length - position;
+    }
+
+    @Override
+    public void close() {
+        for (CompletableFuture<byte[]> future : pending)
+            future.cancel(false);
+        pending.clear();
+        nextIndex = manifest.getChunkCount();
+    }
+
+    /**
+     * Make sure there is something left in the current chunk, false at the end of the document.
+     */
+    private boolean fill() throws IOException {
+        while (position == chunk.length) {
+            CompletableFuture<byte[]> next = pending.poll();
+            if (next == null)
+                return false;
+            int index = nextIndex - pending.size() - 1;
+            requestAhead();
+            chunk = await(next, index);
+            position = 0;
+        }
+        return true;
+    }
+
+    private void requestAhead() {
+        while (pending.size() < readahead && nextIndex < manifest.getChunkCount()) {
+            DocChunkKey chunkKey = new DocChunkKey(docName, manifest.getChunkSetId(), nextIndex++);
+            pending.add(chunkMap.getAsync(chunkKey).toCompletableFuture());
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> future, int index) throws IOException {
+        try {
+            byte[] bytes = future.get(CHUNK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (bytes == null)
+                throw new IOException("Missing chunk " + index + " of document " + docName);
+            return bytes;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading document " + docName);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Failed to read chunk " + index + " of document " + docName, e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import common.Comment;
+import common.CommentSegment;
+import common.CommentSegmentKey;
+import common.DocKey;
+import hazel.processor.AddCommentProcessor;
+import hazel.processor.AppendCommentProcessor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static common.Constants.*;
+
+/**
+ * Adding comments to the comment log of a document (segments in DocComments, head in DocCommentCounts).
+ * The comment is first appended to the tail segment (AppendCommentProcessor), then the head is moved past it
+ * (AddCommentProcessor). Both are separate asynchronous invocations, no processor ever waits for another one
+ * (a processor invoking another map from its partition thread would wait for backups queued behind it).
+ * <p>
+ * Segments are filled in order, so every comment below the head is stored - the head only announces appended comments.
+ * The head is just a hint where the tail starts, an append finding its segment full simply moves on to the next one.
+ * Usable from both members and clients.
+ */
+public class CommentLog {
+
+    private CommentLog() {
+    }
+
+    /**
+     * Append the comment to the log of the document, completing with true once it is visible to readers.
+     */
+    public static CompletionStage<Boolean> append(HazelcastInstance hazelcast, String docName, Comment comment) {
+        IMap<DocKey, Integer> commentCountMap = hazelcast.getMap(DOC_COMM_COUNTS_MAP);
+        DocKey docKey = new DocKey(docName);
+        return commentCountMap.getAsync(docKey)
+                .thenCompose(count -> appendFrom(hazelcast, docName, comment, (count == null ? 0 : count) / COMMENT_SEGMENT_SIZE))
+                .thenCompose(index -> commentCountMap.submitToKey(docKey, new AddCommentProcessor(docName, comment, index)));
+    }
+
+    /**
+     * Append the comment to the first segment with free space starting with the given one, completing with its index.
+     */
+    private static CompletionStage<Integer> appendFrom(HazelcastInstance hazelcast, String docName, Comment comment, int segment) {
+        IMap<CommentSegmentKey, CommentSegment> segmentMap = hazelcast.getMap(DOC_COMMS_MAP);
+        return segmentMap.submitToKey(new CommentSegmentKey(docName, segment), new AppendCommentProcessor(comment))
+                .thenCompose(position -> position >= 0
+                        ? CompletableFuture.completedFuture(segment * COMMENT_SEGMENT_SIZE + position)
+                        : appendFrom(hazelcast, docName, comment, segment + 1));
+    }
+}
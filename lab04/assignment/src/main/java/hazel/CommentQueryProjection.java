@@ -0,0 +1,118 @@
+package hazel;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.projection.Projection;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import common.Comment;
+import common.CommentMatch;
+import common.CommentSegment;
+import common.CommentSegmentKey;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Query of comments of all documents by author and/or time window [since, until).
+ * The predicate (see predicate()) selects the comment segments by the indexes of DocComments (hazelcast.yaml), in parallel
+ * on all members (see CommentQueryTask). A segment matches if any of its comments has the author and any of them is in the window,
+ * so the projection then picks only the comments matching both, and only the latest of those are sent back.
+ * A query needs an author or a time window - without any of them it would send every comment of the cluster to the client.
+ */
+public class CommentQueryProjection implements Projection<Map.Entry<CommentSegmentKey, CommentSegment>, List<CommentMatch>>, IdentifiedDataSerializable {
+
+    // Indexed attributes of CommentSegment
+    public static final String AUTHOR_ATTRIBUTE = "comments[any].author";
+    public static final String CREATED_AT_ATTRIBUTE = "comments[any].createdAt";
+
+    // null for any author
+    private String author;
+    // null for unbounded
+    private Date since;
+    private Date until;
+
+    public CommentQueryProjection() {
+    }
+
+    public CommentQueryProjection(String author, Date since, Date until) {
+        if (author == null && since == null && until == null)
+            throw new IllegalArgumentException("Comment query needs an author or a time window");
+        this.author = author;
+        this.since = since;
+        this.until = until;
+    }
+
+    /**
+     * Predicate selecting the segments with some matching comments.
+     */
+    public Predicate<CommentSegmentKey, CommentSegment> predicate() {
+        List<Predicate<CommentSegmentKey, CommentSegment>> conditions = new ArrayList<>();
+        if (author != null)
+            conditions.add(Predicates.equal(AUTHOR_ATTRIBUTE, author));
+        if (since != null)
+            conditions.add(Predicates.greaterEqual(CREATED_AT_ATTRIBUTE, since));
+        if (until != null)
+            conditions.add(Predicates.lessThan(CREATED_AT_ATTRIBUTE, until));
+        if (conditions.size() == 1)
+            return conditions.get(0);
+        return Predicates.and(conditions.toArray(new Predicate[0]));
+    }
+
+    @Override
+    public List<CommentMatch> transform(Map.Entry<CommentSegmentKey, CommentSegment> entry) {
+        String docName = entry.getKey().getDocName();
+        List<CommentMatch> matches = new ArrayList<>();
+        for (Comment comment : entry.getValue().getComments())
+            if (matches(comment))
+                matches.add(new CommentMatch(docName, comment));
+        return matches;
+    }
+
+    /**
+     * The `limit` latest of given matches, latest first.
+     */
+    public static List<CommentMatch> latest(List<CommentMatch> matches, int limit) {
+        matches.sort(Comparator.comparing((CommentMatch match) -> match.getComment().getCreatedAt()).reversed());
+        return new ArrayList<>(matches.subList(0, Math.min(limit, matches.size())));
+    }
+
+    private boolean matches(Comment comment) {
+        if (author != null && !author.equals(comment.getAuthor()))
+            return false;
+        if (since != null && comment.getCreatedAt().before(since))
+            return false;
+        return until == null || comment.getCreatedAt().before(until);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(author);
+        out.writeLong(since == null ? Long.MIN_VALUE : since.getTime());
+        out.writeLong(until == null ? Long.MIN_VALUE : until.getTime());
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        author = in.readString();
+        long sinceMillis = in.readLong();
+        since = sinceMillis == Long.MIN_VALUE ? null : new Date(sinceMillis);
+        long untilMillis = in.readLong();
+        until = untilMillis == Long.MIN_VALUE ? null : new Date(untilMillis);
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMENT_QUERY_PROJECTION;
+    }
+}
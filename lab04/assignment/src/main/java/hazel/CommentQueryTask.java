@@ -0,0 +1,83 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import common.CommentMatch;
+import common.CommentSegment;
+import common.CommentSegmentKey;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static common.Constants.DOC_COMMS_MAP;
+
+/**
+ * The `limit` latest comments matching the query among the comment segments owned by the member (see CommentQueryProjection).
+ * Submitted to all data members, the client merges their matches - no member sends more than the client shows.
+ */
+public class CommentQueryTask implements Callable<List<CommentMatch>>, IdentifiedDataSerializable, HazelcastInstanceAware {
+
+    private CommentQueryProjection query;
+    private int limit;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public CommentQueryTask() {
+    }
+
+    public CommentQueryTask(CommentQueryProjection query, int limit) {
+        this.query = query;
+        this.limit = limit;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public List<CommentMatch> call() {
+        IMap<CommentSegmentKey, CommentSegment> commentMap = hazelcastInstance.getMap(DOC_COMMS_MAP);
+        // selected by the indexes, keys are owned by this member, so reading the segments is local
+        Set<CommentSegmentKey> keys = commentMap.localKeySet(query.predicate());
+        List<CommentMatch> matches = new ArrayList<>();
+        for (Map.Entry<CommentSegmentKey, CommentSegment> entry : commentMap.getAll(keys).entrySet())
+            matches.addAll(query.transform(entry));
+        return CommentQueryProjection.latest(matches, limit);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeObject(query);
+        out.writeInt(limit);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        query = in.readObject();
+        limit = in.readInt();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMENT_QUERY_TASK;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CommentQueryTask(%d)", limit);
+    }
+}
@@ -0,0 +1,171 @@
+package hazel;
+
+import com.hazelcast.nio.serialization.DataSerializableFactory;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import common.*;
+import hazel.command.*;
+import hazel.processor.*;
+
+/**
+ * Factory for all objects sent between clients and members (documents, comments, tasks, processors and queries).
+ * Registered both in hazelcast.yaml (members) and in ClientConfig (clients), so that instances are created
+ * directly by their type id instead of going through reflective java serialization.
+ */
+public class DocSerializableFactory implements DataSerializableFactory {
+
+    public static final int FACTORY_ID = 1;
+
+    // Values
+    public static final int DOCUMENT = 1;
+    public static final int COMMENT = 2;
+    public static final int DOC_KEY = 3;
+    public static final int USER_KEY = 4;
+    public static final int DOC_INFO = 5;
+    public static final int COMMAND_RESULT = 6;
+    public static final int COMMENT_SEGMENT_KEY = 7;
+    public static final int COMMENT_SEGMENT = 8;
+    public static final int COMMENT_PAGE = 9;
+    public static final int FAVOURITES = 10;
+    public static final int WARM_UP_RESULT = 11;
+    public static final int DOC_CHUNK_KEY = 12;
+    public static final int VIEW_RANKING = 13;
+    public static final int COMMENT_MATCH = 14;
+    public static final int DOC_UPDATE = 15;
+    public static final int TASK_REPLY = 16;
+
+    // Tasks
+    public static final int FETCH_DOC_TASK = 100;
+    public static final int ADD_FAVORITE_TASK = 101;
+    public static final int REMOVE_FAVORITE_TASK = 102;
+    public static final int COMMENT_TASK = 103;
+    public static final int INFO_TASK = 104;
+    public static final int NEXT_FAVORITE_TASK = 105;
+    public static final int SELECT_NEXT_FAVORITE_TASK = 106;
+    public static final int WARM_UP_TASK = 107;
+    public static final int TOP_VIEWED_TASK = 108;
+    public static final int GENERATE_DOC_TASK = 109;
+    public static final int PREFETCH_DOC_TASK = 110;
+    public static final int COMMENT_QUERY_TASK = 111;
+
+    // Processors
+    public static final int ADD_COMMENT_PROCESSOR = 200;
+    public static final int ADD_TO_FAVES_PROCESSOR = 201;
+    public static final int GET_FAVES_PAGE_PROCESSOR = 203;
+    public static final int GET_NEXT_FAVE_PROCESSOR = 204;
+    public static final int GET_USER_LAST_VIEWED_PROCESSOR = 205;
+    public static final int GET_VIEWS_PROCESSOR = 206;
+    public static final int INCREMENT_VIEWS_PROCESSOR = 207;
+    public static final int REMOVE_FROM_FAVES_PROCESSOR = 208;
+    public static final int SET_USER_LAST_VIEWED_PROCESSOR = 209;
+    public static final int VIEW_DOCUMENT_PROCESSOR = 210;
+    public static final int ADD_VIEWS_PROCESSOR = 211;
+    public static final int APPEND_COMMENT_PROCESSOR = 212;
+    public static final int GET_COMMENTS_PAGE_PROCESSOR = 213;
+    public static final int SET_VALUE_BACKUP_PROCESSOR = 214;
+    public static final int SET_FAVES_CURSOR_PROCESSOR = 215;
+    public static final int GET_FOLLOWING_FAVE_PROCESSOR = 216;
+    public static final int FOLLOW_PROCESSOR = 217;
+
+    // Queries
+    public static final int COMMENT_QUERY_PROJECTION = 300;
+
+    @Override
+    public IdentifiedDataSerializable create(int typeId) {
+        switch (typeId) {
+            case DOCUMENT:
+                return new Document();
+            case COMMENT:
+                return new Comment();
+            case DOC_KEY:
+                return new DocKey();
+            case USER_KEY:
+                return new UserKey();
+            case DOC_INFO:
+                return new DocInfo();
+            case COMMAND_RESULT:
+                return new CommandResult<>();
+            case COMMENT_SEGMENT_KEY:
+                return new CommentSegmentKey();
+            case COMMENT_SEGMENT:
+                return new CommentSegment();
+            case COMMENT_PAGE:
+                return new CommentPage();
+            case FAVOURITES:
+                return new Favourites();
+            case WARM_UP_RESULT:
+                return new WarmUpResult();
+            case DOC_CHUNK_KEY:
+                return new DocChunkKey();
+            case VIEW_RANKING:
+                return new ViewRanking();
+            case COMMENT_MATCH:
+                return new CommentMatch();
+            case DOC_UPDATE:
+                return new DocUpdate();
+            case TASK_REPLY:
+                return new TaskReply();
+            case FETCH_DOC_TASK:
+                return new FetchDocTask();
+            case ADD_FAVORITE_TASK:
+                return new AddFavoriteTask();
+            case REMOVE_FAVORITE_TASK:
+                return new RemoveFavoriteTask();
+            case COMMENT_TASK:
+                return new CommentTask();
+            case INFO_TASK:
+                return new InfoTask();
+            case NEXT_FAVORITE_TASK:
+                return new NextFavoriteTask();
+            case SELECT_NEXT_FAVORITE_TASK:
+                return new SelectNextFavoriteTask();
+            case WARM_UP_TASK:
+                return new WarmUpTask();
+            case TOP_VIEWED_TASK:
+                return new TopViewedTask();
+            case GENERATE_DOC_TASK:
+                return new GenerateDocTask();
+            case PREFETCH_DOC_TASK:
+                return new PrefetchDocTask();
+            case COMMENT_QUERY_TASK:
+                return new CommentQueryTask();
+            case ADD_COMMENT_PROCESSOR:
+                return new AddCommentProcessor();
+            case ADD_TO_FAVES_PROCESSOR:
+                return new AddToFavesProcessor();
+            case GET_FAVES_PAGE_PROCESSOR:
+                return new GetFavesPageProcessor();
+            case GET_NEXT_FAVE_PROCESSOR:
+                return new GetNextFaveProcessor();
+            case GET_USER_LAST_VIEWED_PROCESSOR:
+                return new GetUserLastViewedProcessor();
+            case GET_VIEWS_PROCESSOR:
+                return new GetViewsProcessor();
+            case INCREMENT_VIEWS_PROCESSOR:
+                return new IncrementViewsProcessor();
+            case REMOVE_FROM_FAVES_PROCESSOR:
+                return new RemoveFromFavesProcessor();
+            case SET_USER_LAST_VIEWED_PROCESSOR:
+                return new SetUserLastViewedProcessor();
+            case VIEW_DOCUMENT_PROCESSOR:
+                return new ViewDocumentProcessor();
+            case ADD_VIEWS_PROCESSOR:
+                return new AddViewsProcessor();
+            case APPEND_COMMENT_PROCESSOR:
+                return new AppendCommentProcessor();
+            case GET_COMMENTS_PAGE_PROCESSOR:
+                return new GetCommentsPageProcessor();
+            case SET_VALUE_BACKUP_PROCESSOR:
+                return new SetValueBackupProcessor<>();
+            case SET_FAVES_CURSOR_PROCESSOR:
+                return new SetFavesCursorProcessor<>();
+            case GET_FOLLOWING_FAVE_PROCESSOR:
+                return new GetFollowingFaveProcessor();
+            case FOLLOW_PROCESSOR:
+                return new FollowProcessor();
+            case COMMENT_QUERY_PROJECTION:
+                return new CommentQueryProjection();
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package hazel;
+
+import com.hazelcast.core.EntryView;
+import com.hazelcast.map.MapEvictionPolicyComparator;
+import common.DocKey;
+import common.Document;
+
+/**
+ * Eviction policy of DocumentCache, which evicts the documents whose regeneration would cost the least per byte of memory.
+ * <p>
+ * Every evicted document costs the same to bring back (it is loaded again from the map store), so the cost of evicting one
+ * is the number of future misses - estimated by its popularity. Every counted view reads the cached document
+ * on its owner, so the hits of the cache entry follow the view counts in DocViewCounts (since the document was cached),
+ * without reading another map on the partition thread. Hits decay by half every HALF_LIFE_MILLIS of not being accessed,
+ * so documents popular long ago don't stay forever (as they would with plain LFU), and are divided by the memory
+ * the entry takes, so a large document has to be proportionally more popular to stay.
+ * <p>
+ * Runs on partition threads, for a few sampled entries per eviction.
+ */
+public class DocumentEvictionComparator implements MapEvictionPolicyComparator<DocKey, Document> {
+
+    private static final double HALF_LIFE_MILLIS = 10 * 60 * 1000;
+
+    @Override
+    public int compare(EntryView<DocKey, Document> first, EntryView<DocKey, Document> second) {
+        long now = System.currentTimeMillis();
+        // The entry with the lower value is evicted first
+        return Double.compare(value(first, now), value(second, now));
+    }
+
+    private static double value(EntryView<DocKey, Document> entry, long now) {
+        long lastUsed = Math.max(entry.getLastAccessTime(), entry.getCreationTime());
+        double idle = Math.max(0, now - lastUsed);
+        double popularity = (entry.getHits() + 1) * Math.pow(0.5, idle / HALF_LIFE_MILLIS);
+        return popularity / Math.max(1, entry.getCost());
+    }
+
+    // Compared when configs of members are compared, there is no state
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof DocumentEvictionComparator;
+    }
+
+    @Override
+    public int hashCode() {
+        return DocumentEvictionComparator.class.hashCode();
+    }
+}
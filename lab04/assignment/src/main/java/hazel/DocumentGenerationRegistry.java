@@ -0,0 +1,102 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.map.IMap;
+import common.DocKey;
+import common.Document;
+
+import java.util.concurrent.*;
+
+import static common.Constants.DOC_CACHE_MAP;
+
+/**
+ * Member-local registry of documents which are currently being generated (single-flight).
+ * The first fetcher which misses a document starts its generation, all concurrent fetchers of the same document
+ * only receive the same future, so no document is generated twice and nobody holds a cluster lock while waiting.
+ *
+ * Documents evicted from the cache are loaded back from the map store (see FileMapStore) by the lookup of the document,
+ * only documents never seen before are actually generated - by one of the generator members (see DocumentGenerators),
+ * this member then only stores the result.
+ *
+ * Fetch tasks are submitted to the owner of the document key, so all fetchers of a document meet in the same registry.
+ * Should two members still race (e.g., during migration), the document is only stored by putIfAbsent (see DocumentStorage).
+ */
+public class DocumentGenerationRegistry {
+
+    private static final String USER_CONTEXT_KEY = DocumentGenerationRegistry.class.getName();
+
+    private final HazelcastInstance hazelcast;
+    // Generations in progress, entry is removed as soon as the generation finishes (successfully or not)
+    private final ConcurrentMap<DocKey, CompletableFuture<Document>> inFlight = new ConcurrentHashMap<>();
+    // Generation itself is long-running and mostly waits, so it runs on virtual threads - any number of concurrent
+    // generations costs no platform threads (and never blocks executor or partition threads)
+    private final ExecutorService generators = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("doc-generator-", 0).factory());
+
+    private DocumentGenerationRegistry(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+        hazelcast.getLifecycleService().addLifecycleListener(event -> {
+            if (event.getState() == LifecycleEvent.LifecycleState.SHUTTING_DOWN)
+                generators.shutdownNow();
+        });
+    }
+
+    /**
+     * Get the registry of given member, creating it on first use.
+     */
+    public static DocumentGenerationRegistry of(HazelcastInstance hazelcast) {
+        return (DocumentGenerationRegistry) hazelcast.getUserContext()
+                .computeIfAbsent(USER_CONTEXT_KEY, key -> new DocumentGenerationRegistry(hazelcast));
+    }
+
+    /**
+     * Get a future of the cached document, starting its generation if no other generation is in progress.
+     * The future completes exceptionally if the generation fails, following calls will then try again.
+     */
+    public CompletableFuture<Document> getOrGenerate(DocKey docKey) {
+        CompletableFuture<Document> existing = inFlight.get(docKey);
+        if (existing != null)
+            return existing;
+
+        CompletableFuture<Document> created = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(docKey, created);
+        if (existing != null)
+            return existing;
+
+        try {
+            generators.execute(() -> generate(docKey, created));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(docKey, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private void generate(DocKey docKey, CompletableFuture<Document> result) {
+        String docName = docKey.getName();
+        try {
+            IMap<DocKey, Document> docMap = hazelcast.getMap(DOC_CACHE_MAP);
+
+            // Someone might have finished the generation in the meantime (or the document was evicted and is loaded again)
+            Document document = docMap.get(docKey);
+            if (document == null) {
+                long start = System.nanoTime();
+                boolean success = false;
+                try {
+                    Document generated = DocumentGenerators.of(hazelcast).generate(docName);
+                    document = DocumentStorage.putIfAbsent(hazelcast, docKey, generated);
+                    success = true;
+                } finally {
+                    DocumentMetrics.of(hazelcast).recordGeneration(System.nanoTime() - start, success);
+                }
+            }
+            result.complete(document);
+        } catch (Throwable t) {
+            System.err.printf("UNEXPECTED: failed to generate document %s: %s%n", docName, t);
+            result.completeExceptionally(t);
+        } finally {
+            inFlight.remove(docKey, result);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package hazel;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.cluster.MembershipEvent;
+import com.hazelcast.cluster.MembershipListener;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.core.MemberLeftException;
+import com.hazelcast.map.IMap;
+import com.hazelcast.spi.exception.TargetNotMemberException;
+import common.Document;
+import common.DocumentGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static common.Constants.GENERATION_EXECUTOR;
+import static common.Constants.GENERATOR_LOADS_MAP;
+
+/**
+ * Routing of document generations to the members generating documents (by their MemberRole attribute).
+ * Out of two random generator members, the one with fewer generations in progress is chosen (power of two choices).
+ * Every generator member announces how many generations it runs (for any member) in GENERATOR_LOADS_MAP,
+ * where the loads of both candidates are read at once - between the announcements the generations this member itself
+ * has sent count too.
+ * Generations chosen to run locally skip the executor altogether.
+ * <p>
+ * Generations run on virtual threads of the generating member, a remote one (GenerateDocTask) replies with the document
+ * once generated (see TaskReplies), so no thread of the GENERATION_EXECUTOR waits for it. Generations of a generator
+ * member which left fail at once and are sent to another one.
+ * A cluster without any generator members (e.g., only data members) generates documents where they are needed.
+ */
+public class DocumentGenerators {
+
+    private static final String USER_CONTEXT_KEY = DocumentGenerators.class.getName();
+    // Generator members tried for a single generation, should they leave in the middle of it
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final HazelcastInstance hazelcast;
+    // member -> generations sent to it by this member and not finished yet
+    private final ConcurrentMap<UUID, Set<CompletableFuture<Document>>> inProgress = new ConcurrentHashMap<>();
+    // generator member -> generations it runs, as last announced by the member
+    private final IMap<UUID, Integer> loads;
+    // generations running on this member (for any member)
+    private final AtomicInteger running = new AtomicInteger();
+    // Generation itself is long-running and mostly waits, so it runs on virtual threads (see DocumentGenerationRegistry)
+    private final ExecutorService generators = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("doc-remote-generator-", 0).factory());
+
+    private DocumentGenerators(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+        this.loads = hazelcast.getMap(GENERATOR_LOADS_MAP);
+        hazelcast.getCluster().addMembershipListener(new MembershipListener() {
+            @Override
+            public void memberAdded(MembershipEvent event) {
+            }
+
+            @Override
+            public void memberRemoved(MembershipEvent event) {
+                Set<CompletableFuture<Document>> generations = inProgress.remove(event.getMember().getUuid());
+                if (generations != null)
+                    for (CompletableFuture<Document> generation : generations)
+                        generation.completeExceptionally(new MemberLeftException(event.getMember()));
+                loads.removeAsync(event.getMember().getUuid());
+            }
+        });
+        hazelcast.getLifecycleService().addLifecycleListener(event -> {
+            if (event.getState() == LifecycleEvent.LifecycleState.SHUTTING_DOWN)
+                generators.shutdownNow();
+        });
+    }
+
+    /**
+     * Get the generator routing of given member, creating it on first use.
+     */
+    public static DocumentGenerators of(HazelcastInstance hazelcast) {
+        return (DocumentGenerators) hazelcast.getUserContext()
+                .computeIfAbsent(USER_CONTEXT_KEY, key -> new DocumentGenerators(hazelcast));
+    }
+
+    /**
+     * Generate the document on the least loaded of two random generator members, waiting for the result
+     * (called on virtual threads of DocumentGenerationRegistry).
+     */
+    public Document generate(String docName) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            Member member = choose();
+            if (member == null || member.localMember())
+                return generateHere(docName);
+
+            try {
+                return generateOn(member, docName).get();
+            } catch (ExecutionException e) {
+                boolean memberLeft = e.getCause() instanceof MemberLeftException || e.getCause() instanceof TargetNotMemberException;
+                if (!memberLeft || attempt >= MAX_ATTEMPTS)
+                    throw e;
+                System.err.printf("Generator %s left, generating document %s elsewhere%n", member, docName);
+            }
+        }
+    }
+
+    /**
+     * Start generating the document on this member for another member, on a virtual thread.
+     */
+    CompletableFuture<Document> generateForMember(String docName) {
+        return CompletableFuture.supplyAsync(() -> generateHere(docName), generators);
+    }
+
+    private CompletableFuture<Document> generateOn(Member member, String docName) {
+        CompletableFuture<Document> generation = TaskReplies.of(hazelcast)
+                .submitToMember(GENERATION_EXECUTOR, replyKey -> new GenerateDocTask(docName, replyKey), member);
+        Set<CompletableFuture<Document>> generations = inProgress.computeIfAbsent(member.getUuid(), uuid -> ConcurrentHashMap.newKeySet());
+        generations.add(generation);
+        generation.whenComplete((document, t) -> generations.remove(generation));
+        // The member might have left before the generation was added
+        if (!hazelcast.getCluster().getMembers().contains(member))
+            generation.completeExceptionally(new MemberLeftException(member));
+        return generation;
+    }
+
+    private Document generateHere(String docName) {
+        announceLoad(running.incrementAndGet());
+        try {
+            return DocumentGenerator.generateDocument(docName);
+        } finally {
+            announceLoad(running.decrementAndGet());
+        }
+    }
+
+    private void announceLoad(int load) {
+        if (!MemberRole.of(hazelcast.getCluster().getLocalMember()).generatesDocuments())
+            return;
+        loads.setAsync(hazelcast.getCluster().getLocalMember().getUuid(), load).exceptionally(t -> {
+            System.err.printf("UNEXPECTED: failed to announce generator load: %s%n", t);
+            return null;
+        });
+    }
+
+    private Member choose() {
+        List<Member> generators = new ArrayList<>();
+        for (Member member : hazelcast.getCluster().getMembers())
+            if (MemberRole.of(member).generatesDocuments())
+                generators.add(member);
+        if (generators.isEmpty())
+            return null;
+        if (generators.size() == 1)
+            return generators.get(0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(generators.size());
+        int second = random.nextInt(generators.size() - 1);
+        if (second >= first)
+            second++;
+        Member firstMember = generators.get(first);
+        Member secondMember = generators.get(second);
+        Map<UUID, Integer> announced = loads.getAll(Set.of(firstMember.getUuid(), secondMember.getUuid()));
+        return load(secondMember, announced) < load(firstMember, announced) ? secondMember : firstMember;
+    }
+
+    private int load(Member member, Map<UUID, Integer> announced) {
+        Set<CompletableFuture<Document>> generations = inProgress.get(member.getUuid());
+        return Math.max(generations == null ? 0 : generations.size(), announced.getOrDefault(member.getUuid(), 0));
+    }
+}
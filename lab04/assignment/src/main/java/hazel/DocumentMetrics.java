@@ -0,0 +1,325 @@
+package hazel;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.LifecycleEvent;
+import common.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Member-local metrics of the document service - document cache hits, generations, time spent waiting for them,
+ * speculative prefetches, fetch and processor latencies. Recording is a few atomic increments (see LatencyHistogram), so it is always on.
+ *
+ * Metrics are exposed via JMX (see DocumentMetricsMXBean) and, if doc.metrics.dump-seconds in hazelcast.yaml is positive,
+ * periodically dumped as text into doc.metrics.dump-dir/<member name>.txt - one "name{labels} value" line per metric,
+ * the file is replaced at once, so it can be scraped at any time.
+ */
+public class DocumentMetrics implements DocumentMetricsMXBean {
+
+    public static final String DUMP_SECONDS_PROPERTY = "doc.metrics.dump-seconds";
+    public static final String DUMP_DIR_PROPERTY = "doc.metrics.dump-dir";
+
+    private static final String USER_CONTEXT_KEY = DocumentMetrics.class.getName();
+    private static final String DEFAULT_DUMP_DIR = "metrics";
+
+    private final HazelcastInstance hazelcast;
+
+    private final LatencyHistogram fetches = new LatencyHistogram();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LatencyHistogram generations = new LatencyHistogram();
+    private final LongAdder generationFailures = new LongAdder();
+    // Time fetches spend waiting for a document being generated (there is no lock to wait for otherwise)
+    private final LatencyHistogram generationWaits = new LatencyHistogram();
+    // Outcomes of speculative prefetches (see FavouritePrefetch)
+    private final LongAdder prefetchesStarted = new LongAdder();
+    private final LongAdder prefetchesRejected = new LongAdder();
+    private final LongAdder prefetchesUnneeded = new LongAdder();
+    private final LongAdder prefetchHits = new LongAdder();
+    private final LongAdder prefetchesLate = new LongAdder();
+    // processor class name -> time of its process()
+    private final ConcurrentMap<String, LatencyHistogram> processors = new ConcurrentHashMap<>();
+
+    private DocumentMetrics(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+
+        ObjectName objectName = registerMBean();
+
+        Config config = hazelcast.getConfig();
+        String dumpSeconds = config.getProperty(DUMP_SECONDS_PROPERTY);
+        long dumpPeriod = dumpSeconds == null ? 0 : Long.parseLong(dumpSeconds);
+        ScheduledExecutorService dumper = null;
+        if (dumpPeriod > 0) {
+            String dumpDir = config.getProperty(DUMP_DIR_PROPERTY);
+            Path dumpFile = Path.of(dumpDir == null ? DEFAULT_DUMP_DIR : dumpDir, hazelcast.getName() + ".txt");
+            dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "metrics-dumper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            dumper.scheduleWithFixedDelay(() -> dumpTo(dumpFile), dumpPeriod, dumpPeriod, TimeUnit.SECONDS);
+        }
+
+        ScheduledExecutorService stoppedDumper = dumper;
+        hazelcast.getLifecycleService().addLifecycleListener(event -> {
+            if (event.getState() == LifecycleEvent.LifecycleState.SHUTTING_DOWN) {
+                if (stoppedDumper != null)
+                    stoppedDumper.shutdownNow();
+                unregisterMBean(objectName);
+            }
+        });
+    }
+
+    /**
+     * Get the metrics of given member, creating them on first use.
+     */
+    public static DocumentMetrics of(HazelcastInstance hazelcast) {
+        return (DocumentMetrics) hazelcast.getUserContext()
+                .computeIfAbsent(USER_CONTEXT_KEY, key -> new DocumentMetrics(hazelcast));
+    }
+
+    public void recordFetch(long nanos, boolean cacheHit) {
+        fetches.record(nanos);
+        (cacheHit ? cacheHits : cacheMisses).increment();
+    }
+
+    public void recordGeneration(long nanos, boolean success) {
+        generations.record(nanos);
+        if (!success)
+            generationFailures.increment();
+    }
+
+    public void recordGenerationWait(long nanos) {
+        generationWaits.record(nanos);
+    }
+
+    public void recordPrefetchStarted() {
+        prefetchesStarted.increment();
+    }
+
+    public void recordPrefetchRejected() {
+        prefetchesRejected.increment();
+    }
+
+    public void recordPrefetchUnneeded() {
+        prefetchesUnneeded.increment();
+    }
+
+    public void recordPrefetchHit() {
+        prefetchHits.increment();
+    }
+
+    public void recordPrefetchLate() {
+        prefetchesLate.increment();
+    }
+
+    public void recordProcessor(Class<?> processor, long nanos) {
+        processors.computeIfAbsent(processor.getSimpleName(), name -> new LatencyHistogram()).record(nanos);
+    }
+
+    @Override
+    public long getFetchCount() {
+        return fetches.getCount();
+    }
+
+    @Override
+    public double getFetchMeanMillis() {
+        return fetches.getMean() / 1e6;
+    }
+
+    @Override
+    public double getFetchP99Millis() {
+        return fetches.getPercentile(0.99) / 1e6;
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = cacheHits.sum();
+        long total = hits + cacheMisses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public long getGenerationCount() {
+        return generations.getCount();
+    }
+
+    @Override
+    public long getGenerationFailures() {
+        return generationFailures.sum();
+    }
+
+    @Override
+    public double getGenerationMeanMillis() {
+        return generations.getMean() / 1e6;
+    }
+
+    @Override
+    public double getGenerationP99Millis() {
+        return generations.getPercentile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getGenerationWaitMeanMillis() {
+        return generationWaits.getMean() / 1e6;
+    }
+
+    @Override
+    public double getGenerationWaitP99Millis() {
+        return generationWaits.getPercentile(0.99) / 1e6;
+    }
+
+    @Override
+    public long getPrefetchesStarted() {
+        return prefetchesStarted.sum();
+    }
+
+    @Override
+    public long getPrefetchesRejected() {
+        return prefetchesRejected.sum();
+    }
+
+    @Override
+    public long getPrefetchesUnneeded() {
+        return prefetchesUnneeded.sum();
+    }
+
+    @Override
+    public long getPrefetchHits() {
+        return prefetchHits.sum();
+    }
+
+    @Override
+    public long getPrefetchesLate() {
+        return prefetchesLate.sum();
+    }
+
+    @Override
+    public double getPrefetchHitRatio() {
+        long generated = prefetchesStarted.sum() - prefetchesUnneeded.sum();
+        return generated <= 0 ? 0.0 : (double) prefetchHits.sum() / generated;
+    }
+
+    @Override
+    public Map<String, Long> getProcessorCounts() {
+        return perProcessor(LatencyHistogram::getCount);
+    }
+
+    @Override
+    public Map<String, Double> getProcessorMeanMicros() {
+        return perProcessor(histogram -> histogram.getMean() / 1e3);
+    }
+
+    @Override
+    public Map<String, Double> getProcessorP99Micros() {
+        return perProcessor(histogram -> histogram.getPercentile(0.99) / 1e3);
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder dump = new StringBuilder();
+        dump.append(String.format("# document metrics of member %s at %d%n", hazelcast.getName(), System.currentTimeMillis()));
+        line(dump, "doc_fetch_count", "", fetches.getCount());
+        line(dump, "doc_fetch_mean_millis", "", getFetchMeanMillis());
+        line(dump, "doc_fetch_p99_millis", "", getFetchP99Millis());
+        line(dump, "doc_cache_hits", "", getCacheHits());
+        line(dump, "doc_cache_misses", "", getCacheMisses());
+        line(dump, "doc_cache_hit_ratio", "", getCacheHitRatio());
+        line(dump, "doc_generation_count", "", getGenerationCount());
+        line(dump, "doc_generation_failures", "", getGenerationFailures());
+        line(dump, "doc_generation_mean_millis", "", getGenerationMeanMillis());
+        line(dump, "doc_generation_p99_millis", "", getGenerationP99Millis());
+        line(dump, "doc_generation_wait_count", "", generationWaits.getCount());
+        line(dump, "doc_generation_wait_mean_millis", "", getGenerationWaitMeanMillis());
+        line(dump, "doc_generation_wait_p99_millis", "", getGenerationWaitP99Millis());
+        line(dump, "doc_prefetch_started", "", getPrefetchesStarted());
+        line(dump, "doc_prefetch_rejected", "", getPrefetchesRejected());
+        line(dump, "doc_prefetch_unneeded", "", getPrefetchesUnneeded());
+        line(dump, "doc_prefetch_hits", "", getPrefetchHits());
+        line(dump, "doc_prefetch_late", "", getPrefetchesLate());
+        line(dump, "doc_prefetch_hit_ratio", "", getPrefetchHitRatio());
+        for (Map.Entry<String, LatencyHistogram> processor : new TreeMap<>(processors).entrySet()) {
+            String labels = "{processor=\"" + processor.getKey() + "\"}";
+            LatencyHistogram histogram = processor.getValue();
+            line(dump, "doc_processor_count", labels, histogram.getCount());
+            line(dump, "doc_processor_mean_micros", labels, histogram.getMean() / 1e3);
+            line(dump, "doc_processor_p99_micros", labels, histogram.getPercentile(0.99) / 1e3);
+        }
+        return dump.toString();
+    }
+
+    private static void line(StringBuilder dump, String name, String labels, long value) {
+        dump.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static void line(StringBuilder dump, String name, String labels, double value) {
+        dump.append(name).append(labels).append(' ').append(String.format(Locale.ROOT, "%.3f", value)).append('\n');
+    }
+
+    private <T> Map<String, T> perProcessor(Function<LatencyHistogram, T> value) {
+        Map<String, T> values = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> processor : processors.entrySet())
+            values.put(processor.getKey(), value.apply(processor.getValue()));
+        return values;
+    }
+
+    /**
+     * Write the dump next to the file and move it over the previous one, so readers never see a partial dump.
+     */
+    private void dumpTo(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temporary, dump());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.printf("UNEXPECTED: failed to dump metrics to %s: %s%n", file, e);
+        }
+    }
+
+    private ObjectName registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("hazel:type=DocumentMetrics,member=" + ObjectName.quote(hazelcast.getName()));
+            server.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            System.err.printf("UNEXPECTED: failed to register metrics MBean: %s%n", e);
+            return null;
+        }
+    }
+
+    private static void unregisterMBean(ObjectName objectName) {
+        if (objectName == null)
+            return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            System.err.printf("UNEXPECTED: failed to unregister metrics MBean: %s%n", e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package hazel;
+
+import java.util.Map;
+
+/**
+ * JMX view of DocumentMetrics, registered as hazel:type=DocumentMetrics,member="<member name>".
+ * Latencies are in milliseconds (processors in microseconds), all values are totals since the member started.
+ */
+public interface DocumentMetricsMXBean {
+
+    long getFetchCount();
+
+    double getFetchMeanMillis();
+
+    double getFetchP99Millis();
+
+    long getCacheHits();
+
+    long getCacheMisses();
+
+    double getCacheHitRatio();
+
+    long getGenerationCount();
+
+    long getGenerationFailures();
+
+    double getGenerationMeanMillis();
+
+    double getGenerationP99Millis();
+
+    double getGenerationWaitMeanMillis();
+
+    double getGenerationWaitP99Millis();
+
+    long getPrefetchesStarted();
+
+    long getPrefetchesRejected();
+
+    long getPrefetchesUnneeded();
+
+    long getPrefetchHits();
+
+    long getPrefetchesLate();
+
+    /**
+     * Prefetch hits out of the prefetches which really had to generate (or restore) the document.
+     */
+    double getPrefetchHitRatio();
+
+    Map<String, Long> getProcessorCounts();
+
+    Map<String, Double> getProcessorMeanMicros();
+
+    Map<String, Double> getProcessorP99Micros();
+
+    /**
+     * All metrics in the same text format as the periodic dump.
+     */
+    String dump();
+}
@@ -0,0 +1,65 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import common.DocChunkKey;
+import common.DocKey;
+import common.Document;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static common.Constants.*;
+
+/**
+ * Storing of documents into DocumentCache on a member.
+ * Documents larger than DOCUMENT_CHUNK_SIZE (encoded) are split into chunks stored in DocumentChunks under the document's
+ * partition and only their manifest (see Document.chunked) goes to DocumentCache. No single map value is then larger
+ * than a chunk, so no partition thread is stuck (de)serializing a multi-megabyte document and readers
+ * (see ChunkedDocumentInputStream) get the first chunks before the rest is even sent.
+ * <p>
+ * Chunks are written before the manifest, so any manifest found in the cache has all its chunks stored.
+ * Every stored copy has its own random chunk set id, a copy losing the race for the cache just deletes its chunks.
+ */
+public class DocumentStorage {
+
+    private DocumentStorage() {
+    }
+
+    /**
+     * Store the document unless the cache already holds one, returning the cached document (either the previous one
+     * or what was stored - for large documents that is the manifest, not the given document).
+     */
+    public static Document putIfAbsent(HazelcastInstance hazelcast, DocKey docKey, Document document) {
+        IMap<DocKey, Document> docMap = hazelcast.getMap(DOC_CACHE_MAP);
+        byte[] data = document.getData();
+        // Manifests already have their chunks stored
+        if (document.isChunked() || data.length <= DOCUMENT_CHUNK_SIZE) {
+            Document previous = docMap.putIfAbsent(docKey, document);
+            return previous != null ? previous : document;
+        }
+
+        String docName = docKey.getName();
+        long chunkSetId = ThreadLocalRandom.current().nextLong();
+        int chunkCount = (data.length + DOCUMENT_CHUNK_SIZE - 1) / DOCUMENT_CHUNK_SIZE;
+        Map<DocChunkKey, byte[]> chunks = new HashMap<>();
+        for (int index = 0; index < chunkCount; index++) {
+            int from = index * DOCUMENT_CHUNK_SIZE;
+            chunks.put(new DocChunkKey(docName, chunkSetId, index),
+                    Arrays.copyOfRange(data, from, Math.min(from + DOCUMENT_CHUNK_SIZE, data.length)));
+        }
+        IMap<DocChunkKey, byte[]> chunkMap = hazelcast.getMap(DOC_CHUNKS_MAP);
+        chunkMap.putAll(chunks);
+
+        Document manifest = Document.chunked(document.getCodec(), chunkCount, chunkSetId);
+        Document previous = docMap.putIfAbsent(docKey, manifest);
+        if (previous == null)
+            return manifest;
+
+        for (DocChunkKey chunkKey : chunks.keySet())
+            chunkMap.delete(chunkKey);
+        return previous;
+    }
+}
@@ -0,0 +1,117 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.map.IMap;
+import common.Comment;
+import common.DocKey;
+import common.DocUpdate;
+
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static common.Constants.DOC_FOLLOWERS_MAP;
+import static common.Constants.DOC_UPDATES_MAP;
+
+/**
+ * Member-local publisher of live document updates. The latest update of every document is set into DOC_UPDATES_MAP
+ * under its DocKey, followers listen to the key of the document they follow (see AsyncDocClient.follow), so the members
+ * push only what changed instead of followers polling the whole view count and comment page. Key listeners are filtered
+ * by the members, a follower only receives updates of the documents it follows, and there is a single map however
+ * many documents are followed (entries expire, see hazelcast.yaml).
+ * <p>
+ * New comments are published at once. View counts change with every fetch, so they are only collected and the latest count
+ * of each viewed document is published every doc.updates.views-millis (hazelcast.yaml). Both are recorded by processors,
+ * publishing itself runs on a thread of its own, so partition threads never wait for it. The update is set by the owner
+ * of the document (where the processors run), so publishing is a local operation.
+ * <p>
+ * Only documents with followers are published. Followers are counted in DOC_FOLLOWERS_MAP (see AsyncDocClient.follow),
+ * co-located with the document, so the owner checks them locally. A follower which left without unfollowing
+ * stays counted, its document is then published for nobody.
+ */
+public class DocumentUpdates {
+
+    public static final String VIEWS_MILLIS_PROPERTY = "doc.updates.views-millis";
+
+    private static final String USER_CONTEXT_KEY = DocumentUpdates.class.getName();
+    private static final long DEFAULT_VIEWS_MILLIS = 1000;
+
+    private final IMap<DocKey, DocUpdate> updatesMap;
+    private final IMap<DocKey, Integer> followersMap;
+    // document name -> latest view count not published yet
+    private final ConcurrentMap<String, Integer> pendingViews = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService publisher;
+
+    private DocumentUpdates(HazelcastInstance hazelcast) {
+        this.updatesMap = hazelcast.getMap(DOC_UPDATES_MAP);
+        this.followersMap = hazelcast.getMap(DOC_FOLLOWERS_MAP);
+
+        String viewsMillis = hazelcast.getConfig().getProperty(VIEWS_MILLIS_PROPERTY);
+        long period = viewsMillis == null ? DEFAULT_VIEWS_MILLIS : Long.parseLong(viewsMillis);
+        publisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "doc-updates-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        publisher.scheduleWithFixedDelay(this::publishViews, period, period, TimeUnit.MILLISECONDS);
+        hazelcast.getLifecycleService().addLifecycleListener(event -> {
+            if (event.getState() == LifecycleEvent.LifecycleState.SHUTTING_DOWN)
+                publisher.shutdownNow();
+        });
+    }
+
+    /**
+     * Get the publisher of given member, creating it on first use.
+     */
+    public static DocumentUpdates of(HazelcastInstance hazelcast) {
+        return (DocumentUpdates) hazelcast.getUserContext()
+                .computeIfAbsent(USER_CONTEXT_KEY, key -> new DocumentUpdates(hazelcast));
+    }
+
+    /**
+     * Record the new view count of a document, published with the next batch.
+     */
+    public void viewed(String docName, int viewCount) {
+        pendingViews.merge(docName, viewCount, Math::max);
+    }
+
+    /**
+     * Publish a new comment of a document.
+     */
+    public void commented(String docName, Comment comment, int commentCount) {
+        try {
+            publisher.execute(() -> {
+                // doc key is owned by this member, so this is a local lookup
+                if (followersMap.containsKey(new DocKey(docName)))
+                    publish(DocUpdate.comment(docName, comment, commentCount));
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void publishViews() {
+        if (pendingViews.isEmpty())
+            return;
+
+        // followed documents owned by this member
+        Set<DocKey> followed = followersMap.localKeySet();
+        for (String docName : pendingViews.keySet()) {
+            // Views counted after the removal go with the next batch
+            Integer viewCount = pendingViews.remove(docName);
+            if (viewCount != null && followed.contains(new DocKey(docName)))
+                publish(DocUpdate.views(docName, viewCount));
+        }
+    }
+
+    private void publish(DocUpdate update) {
+        try {
+            updatesMap.setAsync(new DocKey(update.getDocName()), update).exceptionally(e -> {
+                System.err.printf("UNEXPECTED: failed to publish update of document %s: %s%n", update.getDocName(), e);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            System.err.printf("UNEXPECTED: failed to publish update of document %s: %s%n", update.getDocName(), e);
+        }
+    }
+}
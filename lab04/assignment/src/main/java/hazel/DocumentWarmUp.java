@@ -0,0 +1,82 @@
+package hazel;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IExecutorService;
+import common.DocKey;
+import common.WarmUpResult;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+import static common.Constants.WARM_UP_CHUNK_SIZE;
+import static common.Constants.WARM_UP_EXECUTOR;
+
+/**
+ * Bulk warm-up of the document cache, usable both from clients and from members.
+ * Documents are grouped by the owner of their key and sent to the owners in chunks of WARM_UP_CHUNK_SIZE
+ * (WarmUpTask), so all members generate their own missing documents at once.
+ * Chunks run in the separate WARM_UP_EXECUTOR, its pool size bounds the number of chunks generated at once
+ * on a single member, and user fetches in the default executor are never stuck behind a large warm-up.
+ */
+public class DocumentWarmUp {
+
+    private DocumentWarmUp() {
+    }
+
+    /**
+     * Warm up given documents, reporting the cumulative progress after each finished chunk.
+     * The returned stage completes with the total result once all chunks are done. Chunks which fail as a whole
+     * (e.g. their member left) are counted as failed documents.
+     */
+    public static CompletionStage<WarmUpResult> warmUp(HazelcastInstance hazelcast, Collection<String> docNames, Consumer<WarmUpResult> progress) {
+        // Owner of each document key, in order to send each chunk directly to the member with the documents
+        Map<Member, List<String>> byOwner = new HashMap<>();
+        for (String docName : new LinkedHashSet<>(docNames)) {
+            Member owner = hazelcast.getPartitionService().getPartition(new DocKey(docName)).getOwner();
+            byOwner.computeIfAbsent(owner, member -> new ArrayList<>()).add(docName);
+        }
+
+        List<CompletableFuture<WarmUpResult>> chunks = new ArrayList<>();
+        WarmUpResult[] total = {new WarmUpResult()};
+        IExecutorService executor = hazelcast.getExecutorService(WARM_UP_EXECUTOR);
+        for (Map.Entry<Member, List<String>> owned : byOwner.entrySet()) {
+            List<String> ownedNames = owned.getValue();
+            for (int from = 0; from < ownedNames.size(); from += WARM_UP_CHUNK_SIZE) {
+                List<String> chunk = new ArrayList<>(ownedNames.subList(from, Math.min(ownedNames.size(), from + WARM_UP_CHUNK_SIZE)));
+                CompletableFuture<WarmUpResult> chunkResult = new CompletableFuture<>();
+                ExecutionCallback<WarmUpResult> callback = new ExecutionCallback<>() {
+                    @Override
+                    public void onResponse(WarmUpResult response) {
+                        chunkResult.complete(response);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        System.err.printf("UNEXPECTED: Warm-up of %d documents failed: %s%n", chunk.size(), t);
+                        chunkResult.complete(new WarmUpResult(chunk.size(), 0, chunk.size()));
+                    }
+                };
+                // the owner is null only if the partition is not assigned yet, any member will do then
+                if (owned.getKey() != null)
+                    executor.submitToMember(new WarmUpTask(chunk), owned.getKey(), callback);
+                else
+                    executor.submit(new WarmUpTask(chunk), callback);
+
+                chunks.add(chunkResult.thenApply(result -> {
+                    WarmUpResult current;
+                    synchronized (total) {
+                        current = total[0] = total[0].plus(result);
+                    }
+                    progress.accept(current);
+                    return result;
+                }));
+            }
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> total[0]);
+    }
+}
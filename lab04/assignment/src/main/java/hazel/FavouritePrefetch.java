@@ -0,0 +1,135 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import common.DocKey;
+import common.Document;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static common.Constants.PREFETCH_EXECUTOR;
+
+/**
+ * Speculative prefetch of the favourite a user will most likely want next (favourites are cycled in order).
+ * Runs on the owner of the user key (where the favourite commands of the user run), the prefetch itself
+ * (PrefetchDocTask) runs on the owner of the document in the PREFETCH_EXECUTOR, so it never takes a thread of real fetches.
+ * It only starts the generation, the owner replies once it completes (see TaskReplies).
+ * <p>
+ * Speculative work is bounded - a user has at most doc.prefetch.per-user prefetches in progress (counted on the owner
+ * of the user) and the owner of the prefetched documents generates at most doc.prefetch.per-member of them at once,
+ * however many members send it prefetches. Prefetches over the bounds are simply dropped. Outcomes are recorded in
+ * DocumentMetrics of the member prefetching for the user: a prefetched document later fetched by the same user is a hit
+ * if it was cached by then and late if its generation was still in progress.
+ */
+public class FavouritePrefetch {
+
+    public static final String PER_USER_PROPERTY = "doc.prefetch.per-user";
+    public static final String PER_MEMBER_PROPERTY = "doc.prefetch.per-member";
+
+    private static final String USER_CONTEXT_KEY = FavouritePrefetch.class.getName();
+    private static final int DEFAULT_PER_USER = 1;
+    private static final int DEFAULT_PER_MEMBER = 16;
+
+    private final HazelcastInstance hazelcast;
+    private final int perUser;
+    private final int perMember;
+    // user name -> prefetches in progress, removed when there are none
+    private final ConcurrentMap<String, AtomicInteger> userInProgress = new ConcurrentHashMap<>();
+    // generations of prefetched documents owned by this member in progress
+    private final AtomicInteger memberInProgress = new AtomicInteger();
+    // user name -> document prefetched for the user last, until the user fetches it (or something else is prefetched)
+    private final ConcurrentMap<String, String> prefetched = new ConcurrentHashMap<>();
+
+    private FavouritePrefetch(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+        String perUserValue = hazelcast.getConfig().getProperty(PER_USER_PROPERTY);
+        String perMemberValue = hazelcast.getConfig().getProperty(PER_MEMBER_PROPERTY);
+        perUser = perUserValue == null ? DEFAULT_PER_USER : Integer.parseInt(perUserValue);
+        perMember = perMemberValue == null ? DEFAULT_PER_MEMBER : Integer.parseInt(perMemberValue);
+    }
+
+    /**
+     * Get the prefetch of given member, creating it on first use.
+     */
+    public static FavouritePrefetch of(HazelcastInstance hazelcast) {
+        return (FavouritePrefetch) hazelcast.getUserContext()
+                .computeIfAbsent(USER_CONTEXT_KEY, key -> new FavouritePrefetch(hazelcast));
+    }
+
+    /**
+     * Start prefetching the document for the user in the background, unless it would exceed the bounds.
+     */
+    public void prefetch(String userName, String docName) {
+        DocumentMetrics metrics = DocumentMetrics.of(hazelcast);
+        if (perUser <= 0 || perMember <= 0 || !acquire(userName)) {
+            metrics.recordPrefetchRejected();
+            return;
+        }
+
+        prefetched.put(userName, docName);
+        TaskReplies.of(hazelcast)
+                .submitToKeyOwner(PREFETCH_EXECUTOR, replyKey -> new PrefetchDocTask(docName, replyKey), new DocKey(docName))
+                .whenComplete((outcome, t) -> {
+                    release(userName);
+                    if (t != null) {
+                        prefetched.remove(userName, docName);
+                        System.err.printf("UNEXPECTED: prefetch of %s for %s failed: %s%n", docName, userName, t);
+                    } else if (outcome == PrefetchDocTask.REJECTED) {
+                        prefetched.remove(userName, docName);
+                        metrics.recordPrefetchRejected();
+                    } else {
+                        metrics.recordPrefetchStarted();
+                        if (outcome == PrefetchDocTask.CACHED) {
+                            // Already cached - fetching it later is no merit of the prefetch
+                            prefetched.remove(userName, docName);
+                            metrics.recordPrefetchUnneeded();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Start (or join) the generation of a prefetched document owned by this member, unless doc.prefetch.per-member
+     * of them are in progress already. Returns the generation, null if the prefetch is dropped.
+     */
+    CompletableFuture<Document> generate(DocKey docKey) {
+        if (memberInProgress.incrementAndGet() > perMember) {
+            memberInProgress.decrementAndGet();
+            return null;
+        }
+        return DocumentGenerationRegistry.of(hazelcast).getOrGenerate(docKey)
+                .whenComplete((document, t) -> memberInProgress.decrementAndGet());
+    }
+
+    /**
+     * Record a fetch of the user, so that fetches of prefetched documents are counted as hits (or late prefetches).
+     */
+    public void fetched(String userName, String docName, boolean cacheHit) {
+        if (!prefetched.remove(userName, docName))
+            return;
+        DocumentMetrics metrics = DocumentMetrics.of(hazelcast);
+        if (cacheHit)
+            metrics.recordPrefetchHit();
+        else
+            metrics.recordPrefetchLate();
+    }
+
+    private boolean acquire(String userName) {
+        boolean[] acquired = new boolean[1];
+        userInProgress.compute(userName, (name, count) -> {
+            if (count == null)
+                count = new AtomicInteger();
+            acquired[0] = count.get() < perUser;
+            if (acquired[0])
+                count.incrementAndGet();
+            return count;
+        });
+        return acquired[0];
+    }
+
+    private void release(String userName) {
+        userInProgress.computeIfPresent(userName, (name, count) -> count.decrementAndGet() == 0 ? null : count);
+    }
+}
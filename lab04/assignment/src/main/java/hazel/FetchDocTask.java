@@ -3,13 +3,18 @@ package hazel;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.HazelcastInstanceAware;
 import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import common.*;
 import hazel.processor.IncrementViewsProcessor;
 import hazel.processor.SetUserLastViewedProcessor;
+import hazel.processor.ViewDocumentProcessor;
 
-import java.io.Serializable;
-import java.util.Map;
+import java.io.IOException;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import static common.Constants.*;
 
@@ -18,17 +23,56 @@ import static common.Constants.*;
  * - creating doc if it doesn't exist yet
  * - incrementing view counter for document
  * - changing last viewed document for user
+ * Should be submitted to the owner of the document key, so that the document is read and counted locally
+ * and concurrent fetches share a single generation.
+ * Clients which already have the document (e.g., in their near cache) can ask not to include it in the result.
+ * <p>
+ * The task never waits for a generation. A cached-only fetch (see cachedOnly) returns null and changes nothing when
+ * the document is not cached yet, so it can run on FETCH_EXECUTOR, which is then never held up by cold fetches.
+ * Otherwise a miss only starts (or joins) the generation and returns, the rest of the fetch runs once the generation
+ * completes and a replying fetch (see TaskReplies) then sends its outcome to the fetcher. A replying fetch always
+ * replies, even if the document turns out to be cached, and returns null itself.
  */
-public class FetchDocTask implements Callable<Document>, Serializable, HazelcastInstanceAware {
+public class FetchDocTask implements Callable<Document>, IdentifiedDataSerializable, HazelcastInstanceAware {
 
-    private final String docName;
-    private final String clientName;
+    private String docName;
+    private String clientName;
+    private boolean includeDocument = true;
+    private boolean cachedOnly;
+    // Reply key of the fetcher (see TaskReplies), null if the fetch doesn't reply
+    private String replyTo;
+
+    public FetchDocTask() {
+    }
 
     public FetchDocTask(String clientName, String docName) {
         this.docName = docName;
         this.clientName = clientName;
     }
 
+    public FetchDocTask(String clientName, String docName, boolean includeDocument) {
+        this(clientName, docName);
+        this.includeDocument = includeDocument;
+    }
+
+    /**
+     * Fetch which only succeeds if the document is already cached, returning the document, or null if it is not.
+     */
+    public static FetchDocTask cachedOnly(String clientName, String docName) {
+        FetchDocTask task = new FetchDocTask(clientName, docName);
+        task.cachedOnly = true;
+        return task;
+    }
+
+    /**
+     * Fetch which sends its outcome to given reply key of TaskReplies.
+     */
+    static FetchDocTask replying(String clientName, String docName, boolean includeDocument, String replyTo) {
+        FetchDocTask task = new FetchDocTask(clientName, docName, includeDocument);
+        task.replyTo = replyTo;
+        return task;
+    }
+
     private transient HazelcastInstance hazelcastInstance;
 
     public void setHazelcastInstance( HazelcastInstance hazelcastInstance ) {
@@ -36,47 +80,118 @@ public class FetchDocTask implements Callable<Document>, Serializable, Hazelcast
     }
 
     public Document call() throws Exception {
-        System.out.printf("%s starting...%n", this);
+        long start = System.nanoTime();
+        DocumentMetrics metrics = DocumentMetrics.of(hazelcastInstance);
 
-        // execute atomic fetch/caching (and update of metadata) of requested document
-        IMap<String, Document> docMap = hazelcastInstance.getMap(DOC_CACHE_MAP);
-        Document document = docMap.get(docName);
-        if (document == null) {
-            tryCreateDoc();
-            document = docMap.get(docName);
+        DocKey docKey = new DocKey(docName);
+        Document document;
+
+        ViewCountCombiner viewCombiner = ViewCountCombiner.of(hazelcastInstance);
+        if (viewCombiner.isEnabled()) {
+            // views are only accumulated on this member and flushed to DocViewCounts in batches
+            IMap<DocKey, Document> docMap = hazelcastInstance.getMap(DOC_CACHE_MAP);
+            document = docMap.get(docKey);
+            if (document != null)
+                viewCombiner.increment(docKey);
+        } else {
+            // read the cached document and count the view in a single local operation (doc key is owned by this member)
+            IMap<DocKey, Integer> viewMap = hazelcastInstance.getMap(DOC_VIEWS_MAP);
+            document = viewMap.executeOnKey(docKey, new ViewDocumentProcessor(docName));
         }
 
-        // increment view counter
-        IMap<String, Integer> viewMap = hazelcastInstance.getMap(DOC_VIEWS_MAP);
-        boolean viewChangeSuccess = viewMap.executeOnKey(docName, new IncrementViewsProcessor(docName));
-        if (!viewChangeSuccess) {
-            System.out.printf("UNEXPECTED: %s failed to increment %s views!", this, docName);
+        if (document == null) {
+            if (!cachedOnly)
+                fetchGenerated(docKey, start, metrics);
+            return null;
         }
 
         // change user's last viewed doc
-        IMap<String, String> lastDocMap = hazelcastInstance.getMap(LAST_DOCS_MAP);
-        boolean lastChangeSuccess = lastDocMap.executeOnKey(clientName, new SetUserLastViewedProcessor(clientName, docName));
+        IMap<UserKey, String> lastDocMap = hazelcastInstance.getMap(LAST_DOCS_MAP);
+        boolean lastChangeSuccess = lastDocMap.executeOnKey(new UserKey(clientName), new SetUserLastViewedProcessor(clientName, docName));
         if (!lastChangeSuccess) {
-            System.out.printf("UNEXPECTED: %s failed to change %s last viewed doc!", this, clientName);
+            System.err.printf("UNEXPECTED: %s failed to change %s last viewed doc!%n", this, clientName);
         }
 
-        return document;
+        metrics.recordFetch(System.nanoTime() - start, true);
+        if (replyTo != null) {
+            TaskReplies.reply(hazelcastInstance, replyTo, TaskReply.of(includeDocument ? document : null));
+            return null;
+        }
+        return includeDocument ? document : null;
     }
 
     /**
-     * Atomically create the document if it doesn't exist.
-     * Avoids using processor due to choking partition threads.
+     * Join (or start) the single generation of the document and finish the fetch once it completes,
+     * no thread waits for it meanwhile (nor holds any lock).
      */
-    private void tryCreateDoc() {
-        IMap<String, Document> docMap = hazelcastInstance.getMap(DOC_CACHE_MAP);
-        docMap.lock(docName);
-        if (docMap.get(docName) == null) {
-            System.out.printf("%s generating document %s...%n", this, docName);
-            Document newDoc = DocumentGenerator.generateDocument(docName);
-            docMap.put(docName, newDoc);
-            System.out.printf("%s generated document %s%n", this, docName);
+    private void fetchGenerated(DocKey docKey, long start, DocumentMetrics metrics) {
+        long waitStart = System.nanoTime();
+        DocumentGenerationRegistry.of(hazelcastInstance).getOrGenerate(docKey)
+                .thenCompose(document -> {
+                    metrics.recordGenerationWait(System.nanoTime() - waitStart);
+                    return countView(docKey).thenApply(ignored -> document);
+                })
+                .thenCompose(document -> {
+                    IMap<UserKey, String> lastDocMap = hazelcastInstance.getMap(LAST_DOCS_MAP);
+                    return lastDocMap.submitToKey(new UserKey(clientName), new SetUserLastViewedProcessor(clientName, docName))
+                            .thenApply(lastChangeSuccess -> {
+                                if (!lastChangeSuccess)
+                                    System.err.printf("UNEXPECTED: %s failed to change %s last viewed doc!%n", this, clientName);
+                                return document;
+                            });
+                })
+                .whenComplete((document, t) -> {
+                    if (t != null)
+                        System.err.printf("UNEXPECTED: %s failed: %s%n", this, t);
+                    else
+                        metrics.recordFetch(System.nanoTime() - start, false);
+                    if (replyTo != null)
+                        TaskReplies.reply(hazelcastInstance, replyTo,
+                                t != null ? TaskReply.failed(t.toString()) : TaskReply.of(includeDocument ? document : null));
+                });
+    }
+
+    private CompletionStage<Boolean> countView(DocKey docKey) {
+        ViewCountCombiner viewCombiner = ViewCountCombiner.of(hazelcastInstance);
+        if (viewCombiner.isEnabled()) {
+            viewCombiner.increment(docKey);
+            return CompletableFuture.completedFuture(true);
         }
-        docMap.unlock(docName);
+
+        IMap<DocKey, Integer> viewMap = hazelcastInstance.getMap(DOC_VIEWS_MAP);
+        return viewMap.submitToKey(docKey, new IncrementViewsProcessor(docName)).thenApply(viewChangeSuccess -> {
+            if (!viewChangeSuccess)
+                System.err.printf("UNEXPECTED: %s failed to increment %s views!%n", this, docName);
+            return viewChangeSuccess;
+        });
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(clientName);
+        out.writeString(docName);
+        out.writeBoolean(includeDocument);
+        out.writeBoolean(cachedOnly);
+        out.writeString(replyTo);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        clientName = in.readString();
+        docName = in.readString();
+        includeDocument = in.readBoolean();
+        cachedOnly = in.readBoolean();
+        replyTo = in.readString();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.FETCH_DOC_TASK;
     }
 
     @Override
@@ -0,0 +1,182 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.internal.serialization.SerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.map.MapLoaderLifecycleSupport;
+import com.hazelcast.map.MapStore;
+import com.hazelcast.spi.impl.SerializationServiceSupport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Persistence of a map into a local directory - one file per entry, holding the serialized key followed by the serialized
+ * value, both serialized by the member's serialization service (the same binary form hazelcast uses, so every
+ * IdentifiedDataSerializable of DocSerializableFactory works as is). Files are named
+ * by the SHA-256 of the serialized key, so names have the same length however long the key is; the key stored
+ * in the file tells which key it is (for preloading) and guards against collisions.
+ * Every file is replaced at once, so a member stopping in the middle of a write leaves either the old or the new value.
+ * <p>
+ * Meant for write-behind (see hazelcast.yaml) - hazelcast coalesces the updates of a key within write-delay-seconds
+ * and hands them over in batches, so a hot counter is written once per delay, not once per increment.
+ * All members of the machine share the directory, each writes the entries it owns.
+ * <p>
+ * Properties:
+ * - dir - base directory, the map is stored in its subdirectory (default "store")
+ * - preload - whether all stored entries are loaded when the map starts (default true), otherwise they are only
+ *   loaded on a miss of their key (for maps too large to keep in memory as a whole, e.g. documents)
+ */
+public class FileMapStore implements MapStore<Object, Object>, MapLoaderLifecycleSupport {
+
+    public static final String DIR_PROPERTY = "dir";
+    public static final String PRELOAD_PROPERTY = "preload";
+
+    private static final String DEFAULT_DIR = "store";
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private SerializationService serialization;
+    private Path directory;
+    private boolean preload;
+
+    @Override
+    public void init(HazelcastInstance hazelcast, Properties properties, String mapName) {
+        this.serialization = ((SerializationServiceSupport) hazelcast).getSerializationService();
+        this.directory = Path.of(properties.getProperty(DIR_PROPERTY, DEFAULT_DIR), mapName);
+        this.preload = Boolean.parseBoolean(properties.getProperty(PRELOAD_PROPERTY, "true"));
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public void store(Object key, Object value) {
+        write(key, value);
+    }
+
+    @Override
+    public void storeAll(Map<Object, Object> entries) {
+        for (Map.Entry<Object, Object> entry : entries.entrySet())
+            write(entry.getKey(), entry.getValue());
+    }
+
+    @Override
+    public void delete(Object key) {
+        try {
+            Files.deleteIfExists(fileOf(serialize(key)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Object> keys) {
+        for (Object key : keys)
+            delete(key);
+    }
+
+    @Override
+    public Object load(Object key) {
+        try {
+            byte[] keyBytes = serialize(key);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(fileOf(keyBytes))));
+            // a different key with the same hash is as good as no entry
+            return Arrays.equals(readBytes(in), keyBytes) ? deserialize(readBytes(in)) : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Map<Object, Object> loadAll(Collection<Object> keys) {
+        Map<Object, Object> entries = new HashMap<>();
+        for (Object key : keys) {
+            Object value = load(key);
+            if (value != null)
+                entries.put(key, value);
+        }
+        return entries;
+    }
+
+    @Override
+    public Iterable<Object> loadAllKeys() {
+        List<Object> keys = new ArrayList<>();
+        if (!preload)
+            return keys;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+            for (Path file : files) {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)));
+                keys.add(deserialize(readBytes(in)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return keys;
+    }
+
+    private void write(Object key, Object value) {
+        try {
+            byte[] keyBytes = serialize(key);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeBytes(out, keyBytes);
+            writeBytes(out, serialize(value));
+            Path temporary = Files.createTempFile(directory, "store", ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, fileOf(keyBytes), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Hazelcast retries failed writes of write-behind
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path fileOf(byte[] keyBytes) {
+        try {
+            return directory.resolve(HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(keyBytes)) + ENTRY_SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] serialize(Object object) {
+        return serialization.toData(object).toByteArray();
+    }
+
+    private Object deserialize(byte[] bytes) {
+        return serialization.toObject(new HeapData(bytes));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
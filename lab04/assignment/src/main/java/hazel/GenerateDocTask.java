@@ -0,0 +1,77 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import common.Document;
+import common.TaskReply;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+/**
+ * Generate a document on a generator member (see DocumentGenerators) and reply with it (see TaskReplies).
+ * Only starts the generation on a virtual thread and returns null, the executor thread never waits for it.
+ * Only generates - storing the document is up to the owner of the document key which sent the task.
+ */
+public class GenerateDocTask implements Callable<Document>, IdentifiedDataSerializable, HazelcastInstanceAware {
+
+    private String docName;
+    // Reply key of the owner of the document (see TaskReplies)
+    private String replyTo;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public GenerateDocTask() {
+    }
+
+    public GenerateDocTask(String docName, String replyTo) {
+        this.docName = docName;
+        this.replyTo = replyTo;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public Document call() {
+        DocumentGenerators.of(hazelcastInstance).generateForMember(docName).whenComplete((document, t) -> {
+            // A generation interrupted by the shutdown of this member is generated elsewhere once the member leaves
+            if (t != null && !hazelcastInstance.getLifecycleService().isRunning())
+                return;
+            TaskReplies.reply(hazelcastInstance, replyTo, t != null ? TaskReply.failed(t.toString()) : TaskReply.of(document));
+        });
+        return null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeString(replyTo);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        replyTo = in.readString();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.GENERATE_DOC_TASK;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("GenerateDocTask(doc %s)", docName);
+    }
+}
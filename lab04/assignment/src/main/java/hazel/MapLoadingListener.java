@@ -0,0 +1,42 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.core.LifecycleListener;
+
+import java.util.List;
+
+import static common.Constants.*;
+
+/**
+ * Loads all persisted maps (see FileMapStore) as soon as the member starts, before it serves any request.
+ * Registered in hazelcast.yaml, the STARTED event is fired by the thread starting the member, which therefore waits
+ * until the maps are loaded.
+ * <p>
+ * Some processors access a co-located map from the partition thread (e.g. ViewDocumentProcessor reads DocumentCache).
+ * Were that the first access of a map still being loaded, the access would be retried on the very same partition thread
+ * and never complete, so the maps have to be loaded before any processor runs.
+ */
+public class MapLoadingListener implements LifecycleListener, HazelcastInstanceAware {
+
+    private static final List<String> PERSISTENT_MAPS = List.of(
+            DOC_CACHE_MAP, DOC_CHUNKS_MAP, DOC_VIEWS_MAP, DOC_COMMS_MAP, DOC_COMM_COUNTS_MAP, LAST_DOCS_MAP, FAVE_DOCS_MAP);
+
+    private HazelcastInstance hazelcast;
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+    }
+
+    @Override
+    public void stateChanged(LifecycleEvent event) {
+        if (event.getState() != LifecycleEvent.LifecycleState.STARTED)
+            return;
+
+        // Maps with EAGER initial mode are loaded by getMap
+        for (String mapName : PERSISTENT_MAPS)
+            hazelcast.getMap(mapName);
+    }
+}
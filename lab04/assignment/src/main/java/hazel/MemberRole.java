@@ -0,0 +1,75 @@
+package hazel;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.config.Config;
+
+import static common.Constants.MEMBER_ROLE_ATTRIBUTE;
+
+/**
+ * Role of a cluster member, announced to the others in the MEMBER_ROLE_ATTRIBUTE member attribute.
+ * Data members own partitions (and run the fetches and commands of their keys), generator members generate
+ * the documents (see DocumentGenerators). Members without data are lite members, so they never own any partition.
+ */
+public enum MemberRole {
+    // Both stores data and generates documents (the only role before roles were introduced)
+    ALL("all", true, true),
+    // Only stores data, generations are sent to the generator members
+    DATA("data", true, false),
+    // Lite member only generating documents for the data members
+    GENERATOR("generator", false, true),
+    // Lite member neither storing data nor generating documents
+    LITE("lite", false, false);
+
+    private final String name;
+    private final boolean storesData;
+    private final boolean generatesDocuments;
+
+    MemberRole(String name, boolean storesData, boolean generatesDocuments) {
+        this.name = name;
+        this.storesData = storesData;
+        this.generatesDocuments = generatesDocuments;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean storesData() {
+        return storesData;
+    }
+
+    public boolean generatesDocuments() {
+        return generatesDocuments;
+    }
+
+    /**
+     * Role with given name (as passed on the command line).
+     */
+    public static MemberRole parse(String name) {
+        for (MemberRole role : values())
+            if (role.name.equalsIgnoreCase(name))
+                return role;
+        throw new IllegalArgumentException("Unknown member role " + name);
+    }
+
+    /**
+     * Role of given member, members started without any role (e.g., embedded ones) do everything.
+     */
+    public static MemberRole of(Member member) {
+        String name = member.getAttribute(MEMBER_ROLE_ATTRIBUTE);
+        return name == null ? ALL : parse(name);
+    }
+
+    /**
+     * Configure a member to take this role.
+     */
+    public void apply(Config config) {
+        config.getMemberAttributeConfig().setAttribute(MEMBER_ROLE_ATTRIBUTE, name);
+        config.setLiteMember(!storesData);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,96 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import common.DocKey;
+import common.Document;
+import common.TaskReply;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import static common.Constants.DOC_CACHE_MAP;
+
+/**
+ * Make sure a document is cached before anybody asks for it (see FavouritePrefetch), without counting a view.
+ * Submitted to the owner of the document key, joins (or starts) its generation in DocumentGenerationRegistry,
+ * unless the owner has too many prefetches in progress already (see FavouritePrefetch.generate).
+ * <p>
+ * The task never waits for the generation. Returns CACHED if the document was already cached, so nothing had to be prefetched,
+ * or REJECTED if the owner dropped the prefetch. Otherwise returns null and replies GENERATED (or the failure) to its reply key
+ * of TaskReplies once the generation completes.
+ */
+public class PrefetchDocTask implements Callable<Integer>, IdentifiedDataSerializable, HazelcastInstanceAware {
+
+    public static final int GENERATED = 0;
+    public static final int CACHED = 1;
+    public static final int REJECTED = 2;
+
+    private String docName;
+    // Reply key of the prefetching member (see TaskReplies)
+    private String replyTo;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public PrefetchDocTask() {
+    }
+
+    public PrefetchDocTask(String docName, String replyTo) {
+        this.docName = docName;
+        this.replyTo = replyTo;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        DocKey docKey = new DocKey(docName);
+        // doc key is owned by this member, so this is a local lookup
+        IMap<DocKey, Document> docMap = hazelcastInstance.getMap(DOC_CACHE_MAP);
+        if (docMap.containsKey(docKey))
+            return CACHED;
+
+        CompletableFuture<Document> generation = FavouritePrefetch.of(hazelcastInstance).generate(docKey);
+        if (generation == null)
+            return REJECTED;
+
+        generation.whenComplete((document, t) -> TaskReplies.reply(hazelcastInstance, replyTo,
+                t != null ? TaskReply.failed(t.toString()) : TaskReply.of(GENERATED)));
+        return null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeString(replyTo);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        replyTo = in.readString();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.PREFETCH_DOC_TASK;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PrefetchDocTask(doc %s)", docName);
+    }
+}
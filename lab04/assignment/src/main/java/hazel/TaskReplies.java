@@ -0,0 +1,146 @@
+package hazel;
+
+import com.hazelcast.cluster.Member;
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.query.Predicates;
+import common.DocKey;
+import common.Document;
+import common.TaskReply;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static common.Constants.TASK_REPLIES_MAP;
+import static common.Constants.TASK_REPLY_TIMEOUT_SECONDS;
+
+/**
+ * Tasks which may have to wait (e.g., for the generation of a document), without holding an executor thread meanwhile.
+ * A replying task (e.g., replying FetchDocTask or UserCommandTask) only starts the work on its member and returns null,
+ * once the work completes the member sets the outcome (TaskReply) into TASK_REPLIES_MAP under the reply key of the task.
+ * A task which is done at once simply returns its (non-null) result instead.
+ * <p>
+ * Every instance (client or member) listens once to the replies addressed to it - reply keys start with the UUID
+ * of the instance, the members filter the events, so an instance only receives its own replies. Replies are only passed on
+ * by the map, they are removed right after being set. A task without a reply in TASK_REPLY_TIMEOUT_SECONDS (e.g., its member
+ * left in the middle of the generation) fails with a timeout.
+ */
+public class TaskReplies {
+
+    private static final String USER_CONTEXT_KEY = TaskReplies.class.getName();
+    // Replies are removed right after being set, those which failed to be removed expire
+    private static final long REPLY_TTL_SECONDS = 10;
+
+    private final HazelcastInstance hazelcast;
+    private final String keyPrefix;
+    private final AtomicLong lastTaskId = new AtomicLong();
+    // reply key -> task waiting for the reply
+    private final ConcurrentMap<String, CompletableFuture<Object>> waiting = new ConcurrentHashMap<>();
+
+    private TaskReplies(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+        this.keyPrefix = hazelcast.getLocalEndpoint().getUuid() + "/";
+        IMap<String, TaskReply> replyMap = hazelcast.getMap(TASK_REPLIES_MAP);
+        replyMap.addEntryListener((EntryAddedListener<String, TaskReply>) event -> received(event.getKey(), event.getValue()),
+                Predicates.like("__key", keyPrefix + "%"), true);
+    }
+
+    /**
+     * Get the replies of given instance, listening to them on first use (which waits for the registration).
+     */
+    public static TaskReplies of(HazelcastInstance hazelcast) {
+        return (TaskReplies) hazelcast.getUserContext()
+                .computeIfAbsent(USER_CONTEXT_KEY, key -> new TaskReplies(hazelcast));
+    }
+
+    /**
+     * Fetch the document on its owner in given executor, completing with the document (null if not included)
+     * once it is fetched, however long its generation takes.
+     */
+    public CompletableFuture<Document> fetch(String executorName, String clientName, String docName, boolean includeDocument) {
+        return submitToKeyOwner(executorName,
+                replyKey -> FetchDocTask.replying(clientName, docName, includeDocument, replyKey), new DocKey(docName));
+    }
+
+    /**
+     * Submit the task created for a new reply key to the owner of the key in given executor, completing with the
+     * non-null result of the task, or with its reply if it returns null.
+     */
+    public <T> CompletableFuture<T> submitToKeyOwner(String executorName, Function<String, Callable<T>> task, Object key) {
+        return submit(task, (submitted, callback) ->
+                hazelcast.getExecutorService(executorName).submitToKeyOwner(submitted, key, callback));
+    }
+
+    /**
+     * Submit the task created for a new reply key to given member in given executor, completing with the
+     * non-null result of the task, or with its reply if it returns null.
+     */
+    public <T> CompletableFuture<T> submitToMember(String executorName, Function<String, Callable<T>> task, Member member) {
+        return submit(task, (submitted, callback) ->
+                hazelcast.getExecutorService(executorName).submitToMember(submitted, member, callback));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> submit(Function<String, Callable<T>> task, BiConsumer<Callable<T>, ExecutionCallback<T>> submission) {
+        String replyKey = keyPrefix + lastTaskId.incrementAndGet();
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        waiting.put(replyKey, reply);
+        reply.orTimeout(TASK_REPLY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .whenComplete((value, t) -> waiting.remove(replyKey, reply));
+
+        submission.accept(task.apply(replyKey), new ExecutionCallback<T>() {
+            @Override
+            public void onResponse(T response) {
+                // A task returning null replies once it is done
+                if (response != null)
+                    reply.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                reply.completeExceptionally(t);
+            }
+        });
+        return (CompletableFuture<T>) (CompletableFuture<?>) reply;
+    }
+
+    /**
+     * Send the outcome of a task to the instance waiting for it, called on the member running the task.
+     */
+    public static void reply(HazelcastInstance hazelcast, String replyKey, TaskReply reply) {
+        IMap<String, TaskReply> replyMap = hazelcast.getMap(TASK_REPLIES_MAP);
+        // The event is published as the reply is set, the entry itself is of no use afterwards
+        replyMap.setAsync(replyKey, reply, REPLY_TTL_SECONDS, TimeUnit.SECONDS)
+                .thenCompose(ignored -> replyMap.removeAsync(replyKey))
+                .exceptionally(t -> {
+                    System.err.printf("UNEXPECTED: failed to reply to task %s: %s%n", replyKey, t);
+                    return null;
+                });
+    }
+
+    /**
+     * Send the outcome of given stage to the instance waiting for it once the stage completes.
+     */
+    public static void replyWhenComplete(HazelcastInstance hazelcast, String replyKey, CompletionStage<?> outcome) {
+        outcome.whenComplete((value, t) -> reply(hazelcast, replyKey, t != null ? TaskReply.failed(t.toString()) : TaskReply.of(value)));
+    }
+
+    private void received(String replyKey, TaskReply reply) {
+        CompletableFuture<Object> task = waiting.remove(replyKey);
+        if (task == null)
+            return;
+        if (reply.isFailed())
+            task.completeExceptionally(new IllegalStateException(reply.getFailure()));
+        else
+            task.complete(reply.getValue());
+    }
+}
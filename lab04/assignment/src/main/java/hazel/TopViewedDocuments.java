@@ -0,0 +1,167 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.map.IMap;
+import com.hazelcast.partition.MigrationListener;
+import com.hazelcast.partition.MigrationState;
+import com.hazelcast.partition.Partition;
+import com.hazelcast.partition.PartitionService;
+import com.hazelcast.partition.ReplicaMigrationEvent;
+import common.DocKey;
+import common.ViewRanking;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static common.Constants.DOC_VIEWS_MAP;
+import static common.Constants.TOP_VIEWED_CAPACITY;
+
+/**
+ * Member-local leaderboard of the most viewed documents, maintained incrementally by the processors counting views.
+ * Every partition owned by the member has its own bounded heap of its TOP_VIEWED_CAPACITY most viewed documents,
+ * a query (see TopViewedTask) merges the heaps of all owned partitions, so it costs the same however many documents there are.
+ * <p>
+ * View counts only grow, so a document missing from a full heap can only enter it by outgrowing its least viewed document
+ * and the heap stays exact. A heap is only trusted once it is complete - heaps of partitions the member just gained
+ * (by migration or after a restart, when the counts were loaded from disk and not counted by any processor) are first
+ * rebuilt from the local entries of DocViewCounts, which is the only time the query depends on the number of documents.
+ */
+public class TopViewedDocuments {
+
+    private static final String USER_CONTEXT_KEY = TopViewedDocuments.class.getName();
+
+    private final HazelcastInstance hazelcast;
+    // partition id -> heap of the partition, removed whenever the partition migrates
+    private final ConcurrentMap<Integer, PartitionHeap> heaps = new ConcurrentHashMap<>();
+
+    private TopViewedDocuments(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+        hazelcast.getPartitionService().addMigrationListener(new MigrationListener() {
+            @Override
+            public void migrationStarted(MigrationState state) {
+            }
+
+            @Override
+            public void migrationFinished(MigrationState state) {
+            }
+
+            @Override
+            public void replicaMigrationCompleted(ReplicaMigrationEvent event) {
+                heaps.remove(event.getPartitionId());
+            }
+
+            @Override
+            public void replicaMigrationFailed(ReplicaMigrationEvent event) {
+                heaps.remove(event.getPartitionId());
+            }
+        });
+    }
+
+    /**
+     * Get the leaderboard of given member, creating it on first use.
+     */
+    public static TopViewedDocuments of(HazelcastInstance hazelcast) {
+        return (TopViewedDocuments) hazelcast.getUserContext()
+                .computeIfAbsent(USER_CONTEXT_KEY, key -> new TopViewedDocuments(hazelcast));
+    }
+
+    /**
+     * Record the new view count of a document, called by the processors on the owner of the document.
+     */
+    public void viewed(DocKey docKey, int viewCount) {
+        Partition partition = hazelcast.getPartitionService().getPartition(docKey);
+        // Processors replayed on backups see the same counts, but the owner keeps the heap
+        if (partition.getOwner() == null || !partition.getOwner().localMember())
+            return;
+        heaps.computeIfAbsent(partition.getPartitionId(), id -> new PartitionHeap())
+                .offer(docKey.getName(), viewCount);
+    }
+
+    /**
+     * The `limit` most viewed documents of all partitions owned by this member (limit is at most TOP_VIEWED_CAPACITY).
+     */
+    public ViewRanking top(int limit) {
+        PartitionService partitionService = hazelcast.getPartitionService();
+        List<PartitionHeap> owned = new ArrayList<>();
+        Map<Integer, PartitionHeap> incomplete = new HashMap<>();
+        for (Partition partition : partitionService.getPartitions()) {
+            if (partition.getOwner() == null || !partition.getOwner().localMember())
+                continue;
+            PartitionHeap heap = heaps.computeIfAbsent(partition.getPartitionId(), id -> new PartitionHeap());
+            owned.add(heap);
+            if (!heap.isComplete())
+                incomplete.put(partition.getPartitionId(), heap);
+        }
+        if (!incomplete.isEmpty())
+            rebuild(incomplete);
+
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>();
+        for (PartitionHeap heap : owned)
+            heap.addTop(entries, limit);
+        return ViewRanking.of(entries, limit);
+    }
+
+    private void rebuild(Map<Integer, PartitionHeap> incomplete) {
+        PartitionService partitionService = hazelcast.getPartitionService();
+        IMap<DocKey, Integer> viewsMap = hazelcast.getMap(DOC_VIEWS_MAP);
+        Set<DocKey> keys = new HashSet<>();
+        for (DocKey docKey : viewsMap.localKeySet())
+            if (incomplete.containsKey(partitionService.getPartition(docKey).getPartitionId()))
+                keys.add(docKey);
+
+        // Views counted meanwhile are offered by the processors as well, the heaps keep the higher count
+        for (Map.Entry<DocKey, Integer> entry : viewsMap.getAll(keys).entrySet()) {
+            PartitionHeap heap = incomplete.get(partitionService.getPartition(entry.getKey()).getPartitionId());
+            heap.offer(entry.getKey().getName(), entry.getValue());
+        }
+        for (PartitionHeap heap : incomplete.values())
+            heap.complete();
+    }
+
+    /**
+     * Up to TOP_VIEWED_CAPACITY most viewed documents of a single partition.
+     * Updated by the partition thread, read by queries.
+     */
+    private static class PartitionHeap {
+
+        private static final Comparator<Map.Entry<String, Integer>> LEAST_VIEWED_FIRST =
+                Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey());
+
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final TreeSet<Map.Entry<String, Integer>> ordered = new TreeSet<>(LEAST_VIEWED_FIRST);
+        private boolean complete;
+
+        synchronized void offer(String docName, int viewCount) {
+            Integer current = counts.get(docName);
+            if (current != null) {
+                if (viewCount <= current)
+                    return;
+                ordered.remove(Map.entry(docName, current));
+            }
+            else if (counts.size() >= TOP_VIEWED_CAPACITY) {
+                Map.Entry<String, Integer> least = ordered.first();
+                if (LEAST_VIEWED_FIRST.compare(Map.entry(docName, viewCount), least) <= 0)
+                    return;
+                ordered.pollFirst();
+                counts.remove(least.getKey());
+            }
+            counts.put(docName, viewCount);
+            ordered.add(Map.entry(docName, viewCount));
+        }
+
+        synchronized void addTop(List<Map.Entry<String, Integer>> entries, int limit) {
+            Iterator<Map.Entry<String, Integer>> mostViewed = ordered.descendingIterator();
+            for (int i = 0; i < limit && mostViewed.hasNext(); i++)
+                entries.add(mostViewed.next());
+        }
+
+        synchronized boolean isComplete() {
+            return complete;
+        }
+
+        synchronized void complete() {
+            complete = true;
+        }
+    }
+}
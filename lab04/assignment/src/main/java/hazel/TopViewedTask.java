@@ -0,0 +1,64 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import common.ViewRanking;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+/**
+ * Most viewed documents of the partitions owned by the member (see TopViewedDocuments).
+ * Submitted to all members, the client merges their rankings.
+ */
+public class TopViewedTask implements Callable<ViewRanking>, IdentifiedDataSerializable, HazelcastInstanceAware {
+
+    private int limit;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public TopViewedTask() {
+    }
+
+    public TopViewedTask(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public ViewRanking call() {
+        return TopViewedDocuments.of(hazelcastInstance).top(limit);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(limit);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        limit = in.readInt();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.TOP_VIEWED_TASK;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TopViewedTask(%d)", limit);
+    }
+}
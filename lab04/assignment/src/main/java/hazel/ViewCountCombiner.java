@@ -0,0 +1,141 @@
+package hazel;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.LifecycleEvent;
+import com.hazelcast.map.IMap;
+import common.DocKey;
+import hazel.processor.AddViewsProcessor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static common.Constants.DOC_VIEWS_MAP;
+
+/**
+ * Member-local write-combining of view counts.
+ * Instead of sending one processor (and one backup) per view, views are accumulated per document on the member
+ * and merged deltas are flushed to DocViewCounts in a single executeOnKeys call,
+ * either periodically or as soon as the number of pending views reaches the size threshold.
+ *
+ * Readers of DocViewCounts therefore see counts lagging behind by at most the flush interval (plus the flush itself).
+ * Disabled by default, configured by the properties in hazelcast.yaml.
+ */
+public class ViewCountCombiner {
+
+    public static final String ENABLED_PROPERTY = "doc.views.combine";
+    public static final String FLUSH_MILLIS_PROPERTY = "doc.views.combine.flush-millis";
+    public static final String FLUSH_SIZE_PROPERTY = "doc.views.combine.flush-size";
+
+    private static final String USER_CONTEXT_KEY = ViewCountCombiner.class.getName();
+    private static final long DEFAULT_FLUSH_MILLIS = 1000;
+    private static final int DEFAULT_FLUSH_SIZE = 1000;
+
+    private final HazelcastInstance hazelcast;
+    private final boolean enabled;
+    private final int flushSize;
+
+    // document name -> views not flushed yet
+    private final ConcurrentMap<String, Integer> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingViews = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    private ViewCountCombiner(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+
+        Config config = hazelcast.getConfig();
+        this.enabled = Boolean.parseBoolean(config.getProperty(ENABLED_PROPERTY));
+        this.flushSize = parseOrDefault(config.getProperty(FLUSH_SIZE_PROPERTY), DEFAULT_FLUSH_SIZE);
+        long flushMillis = parseOrDefault(config.getProperty(FLUSH_MILLIS_PROPERTY), DEFAULT_FLUSH_MILLIS);
+
+        if (!enabled) {
+            flusher = null;
+            return;
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "view-count-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+
+        hazelcast.getLifecycleService().addLifecycleListener(event -> {
+            if (event.getState() == LifecycleEvent.LifecycleState.SHUTTING_DOWN) {
+                flusher.shutdownNow();
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Get the combiner of given member, creating it on first use.
+     */
+    public static ViewCountCombiner of(HazelcastInstance hazelcast) {
+        return (ViewCountCombiner) hazelcast.getUserContext()
+                .computeIfAbsent(USER_CONTEXT_KEY, key -> new ViewCountCombiner(hazelcast));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Count a single view of the document, it will be written to DocViewCounts by the next flush.
+     */
+    public void increment(DocKey docKey) {
+        pending.merge(docKey.getName(), 1, Integer::sum);
+
+        if (pendingViews.incrementAndGet() >= flushSize && flushScheduled.compareAndSet(false, true))
+            flusher.execute(this::flush);
+    }
+
+    /**
+     * Write all pending views to DocViewCounts.
+     * Views counted during the flush are simply left for the next one.
+     * If the write fails, the views are returned to pending, so none are lost.
+     */
+    private void flush() {
+        flushScheduled.set(false);
+
+        Map<String, Integer> deltas = new HashMap<>();
+        for (String docName : pending.keySet()) {
+            Integer delta = pending.remove(docName);
+            if (delta != null)
+                deltas.put(docName, delta);
+        }
+        if (deltas.isEmpty())
+            return;
+
+        int flushedViews = deltas.values().stream().mapToInt(Integer::intValue).sum();
+        pendingViews.addAndGet(-flushedViews);
+
+        try {
+            Set<DocKey> keys = new HashSet<>();
+            for (String docName : deltas.keySet())
+                keys.add(new DocKey(docName));
+
+            IMap<DocKey, Integer> viewMap = hazelcast.getMap(DOC_VIEWS_MAP);
+            viewMap.executeOnKeys(keys, new AddViewsProcessor(deltas));
+        } catch (Exception e) {
+            System.err.printf("UNEXPECTED: failed to flush %d views, keeping them for the next flush: %s%n", flushedViews, e);
+            for (Map.Entry<String, Integer> delta : deltas.entrySet())
+                pending.merge(delta.getKey(), delta.getValue(), Integer::sum);
+            pendingViews.addAndGet(flushedViews);
+        }
+    }
+
+    private static int parseOrDefault(String value, int defaultValue) {
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static long parseOrDefault(String value, long defaultValue) {
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+}
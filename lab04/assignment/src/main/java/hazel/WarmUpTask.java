@@ -0,0 +1,103 @@
+package hazel;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import common.DocKey;
+import common.Document;
+import common.WarmUpResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static common.Constants.DOC_CACHE_MAP;
+
+/**
+ * Make sure all given documents are cached, generating the missing ones in parallel.
+ * Unlike FetchDocTask, this neither counts views nor selects the documents for any user.
+ * Should be submitted to the owner of the documents (see DocumentWarmUp), so that the documents are checked locally
+ * and the generations are shared with concurrent fetches of the same documents.
+ */
+public class WarmUpTask implements Callable<WarmUpResult>, IdentifiedDataSerializable, HazelcastInstanceAware {
+
+    private List<String> docNames;
+
+    private transient HazelcastInstance hazelcastInstance;
+
+    public WarmUpTask() {
+    }
+
+    public WarmUpTask(List<String> docNames) {
+        this.docNames = docNames;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    @Override
+    public WarmUpResult call() {
+        IMap<DocKey, Document> docMap = hazelcastInstance.getMap(DOC_CACHE_MAP);
+        DocumentGenerationRegistry registry = DocumentGenerationRegistry.of(hazelcastInstance);
+
+        // start all the missing generations first, then wait for them together
+        List<CompletableFuture<Document>> generations = new ArrayList<>();
+        for (String docName : docNames) {
+            DocKey docKey = new DocKey(docName);
+            if (!docMap.containsKey(docKey))
+                generations.add(registry.getOrGenerate(docKey));
+        }
+
+        int failed = 0;
+        for (CompletableFuture<Document> generation : generations) {
+            try {
+                generation.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed++;
+            } catch (ExecutionException e) {
+                failed++;
+            }
+        }
+
+        return new WarmUpResult(docNames.size(), generations.size() - failed, failed);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(docNames.size());
+        for (String docName : docNames)
+            out.writeString(docName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        docNames = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            docNames.add(in.readString());
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.WARM_UP_TASK;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WarmUpTask(%d docs)", docNames.size());
+    }
+}
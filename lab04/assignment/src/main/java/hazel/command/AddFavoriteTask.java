@@ -0,0 +1,39 @@
+package hazel.command;
+
+import com.hazelcast.map.IMap;
+import common.CommandResult;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
+import hazel.processor.AddToFavesProcessor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static common.Constants.FAVE_DOCS_MAP;
+
+/**
+ * Add the last viewed document to favourites of the user.
+ * Returns false if it already was a favourite.
+ */
+public class AddFavoriteTask extends UserCommandTask<Boolean> {
+
+    public AddFavoriteTask() {
+    }
+
+    public AddFavoriteTask(String userName) {
+        super(userName);
+    }
+
+    @Override
+    protected CompletionStage<CommandResult<Boolean>> execute(String lastDocName) {
+        IMap<UserKey, Favourites> faveMap = hazelcastInstance.getMap(FAVE_DOCS_MAP);
+        boolean success = faveMap.executeOnKey(new UserKey(userName), new AddToFavesProcessor(userName, lastDocName));
+        return CompletableFuture.completedFuture(new CommandResult<>(lastDocName, success));
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.ADD_FAVORITE_TASK;
+    }
+}
@@ -0,0 +1,50 @@
+package hazel.command;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.CommandResult;
+import common.Comment;
+import hazel.CommentLog;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Add a comment to the last viewed document of the user.
+ */
+public class CommentTask extends UserCommandTask<Boolean> {
+
+    private Comment comment;
+
+    public CommentTask() {
+    }
+
+    public CommentTask(String userName, Comment comment) {
+        super(userName);
+        this.comment = comment;
+    }
+
+    @Override
+    protected CompletionStage<CommandResult<Boolean>> execute(String lastDocName) {
+        return CommentLog.append(hazelcastInstance, lastDocName, comment)
+                .thenApply(success -> new CommandResult<>(lastDocName, success));
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        super.writeData(out);
+        out.writeObject(comment);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        super.readData(in);
+        comment = in.readObject();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.COMMENT_TASK;
+    }
+}
@@ -0,0 +1,70 @@
+package hazel.command;
+
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.CommandResult;
+import common.CommentPage;
+import common.DocInfo;
+import common.DocKey;
+import hazel.DocSerializableFactory;
+import hazel.processor.GetCommentsPageProcessor;
+import hazel.processor.GetViewsProcessor;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+
+import static common.Constants.DOC_COMM_COUNTS_MAP;
+import static common.Constants.DOC_VIEWS_MAP;
+
+/**
+ * Get the view count and the latest comments of the last viewed document of the user.
+ * Both are independent reads on the document owner, so they are issued in parallel.
+ * Returns null info if any of them fails.
+ */
+public class InfoTask extends UserCommandTask<DocInfo> {
+
+    // Number of latest comments to return
+    private int commentCount;
+
+    public InfoTask() {
+    }
+
+    public InfoTask(String userName, int commentCount) {
+        super(userName);
+        this.commentCount = commentCount;
+    }
+
+    @Override
+    protected CompletionStage<CommandResult<DocInfo>> execute(String lastDocName) {
+        DocKey docKey = new DocKey(lastDocName);
+
+        IMap<DocKey, Integer> viewsMap = hazelcastInstance.getMap(DOC_VIEWS_MAP);
+        CompletionStage<Integer> viewCount = viewsMap.submitToKey(docKey, new GetViewsProcessor(lastDocName));
+
+        IMap<DocKey, Integer> commentCountMap = hazelcastInstance.getMap(DOC_COMM_COUNTS_MAP);
+        CompletionStage<CommentPage> comments = commentCountMap
+                .submitToKey(docKey, GetCommentsPageProcessor.latest(lastDocName, commentCount));
+
+        return viewCount.thenCombine(comments, (views, page) -> views < 0 || page == null
+                ? new CommandResult<>(lastDocName, null)
+                : new CommandResult<>(lastDocName, new DocInfo(views, page)));
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        super.writeData(out);
+        out.writeInt(commentCount);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        super.readData(in);
+        commentCount = in.readInt();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.INFO_TASK;
+    }
+}
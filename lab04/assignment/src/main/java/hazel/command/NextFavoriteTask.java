@@ -0,0 +1,109 @@
+package hazel.command;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.map.IMap;
+import common.CommandResult;
+import common.DocKey;
+import common.Document;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
+import hazel.FavouritePrefetch;
+import hazel.FetchDocTask;
+import hazel.TaskReplies;
+import hazel.processor.GetFollowingFaveProcessor;
+import hazel.processor.GetNextFaveProcessor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static common.Constants.COLD_FETCH_EXECUTOR;
+import static common.Constants.FETCH_EXECUTOR;
+import static common.Constants.FAVE_DOCS_MAP;
+
+/**
+ * Find the favourite following the last viewed document of the user (or the favourite shown last, if the last viewed
+ * document is not a favourite) and fetch it.
+ * Returns result with the next document's name and the document,
+ * or with the last viewed document's name and no document if the user has no favourites.
+ */
+public class NextFavoriteTask extends UserCommandTask<Document> {
+
+    public NextFavoriteTask() {
+    }
+
+    public NextFavoriteTask(String userName) {
+        super(userName);
+    }
+
+    @Override
+    protected CompletionStage<CommandResult<Document>> execute(String lastDocName) {
+        String nextDocName = findNextFavorite(this, lastDocName);
+        if (nextDocName == null)
+            return CompletableFuture.completedFuture(new CommandResult<>(lastDocName, null));
+
+        return fetch(this, nextDocName, true)
+                .thenApply(document -> new CommandResult<>(nextDocName, document));
+    }
+
+    /**
+     * Find the favourite following given document (or the favourite shown last), null if there are no favourites.
+     */
+    static String findNextFavorite(UserCommandTask<?> task, String lastDocName) {
+        // favourites are co-located with the last viewed document of the user
+        IMap<UserKey, Favourites> faveMap = task.hazelcastInstance.getMap(FAVE_DOCS_MAP);
+        return faveMap.executeOnKey(new UserKey(task.userName), new GetNextFaveProcessor(task.userName, lastDocName));
+    }
+
+    /**
+     * Find the favourite following given one without moving the cursor, null if it is not a favourite.
+     */
+    static String findFollowingFavorite(UserCommandTask<?> task, String docName) {
+        // favourites are owned by this member, only the name is read out of them
+        IMap<UserKey, Favourites> faveMap = task.hazelcastInstance.getMap(FAVE_DOCS_MAP);
+        return faveMap.executeOnKey(new UserKey(task.userName), new GetFollowingFaveProcessor(task.userName, docName));
+    }
+
+    /**
+     * Fetch (and count the view of) given favourite as the user and start prefetching the favourite following it
+     * (see FavouritePrefetch), which is the one the user gets next.
+     */
+    static CompletionStage<Document> fetch(UserCommandTask<?> task, String docName, boolean includeDocument) {
+        // fetch it on the document owner (on different executors, so user commands never wait on their own pool),
+        // cached-only first, so that only fetches of documents not cached yet wait among the cold fetches
+        DocKey docKey = new DocKey(docName);
+        CompletableFuture<Document> cached = new CompletableFuture<>();
+        task.hazelcastInstance
+                .getExecutorService(FETCH_EXECUTOR)
+                .submitToKeyOwner(FetchDocTask.cachedOnly(task.userName, docName), docKey, new ExecutionCallback<Document>() {
+                    @Override
+                    public void onResponse(Document document) {
+                        cached.complete(document);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        cached.completeExceptionally(t);
+                    }
+                });
+
+        return cached.thenCompose(document -> {
+            // the prefetch runs while a cold document is still being fetched
+            FavouritePrefetch prefetch = FavouritePrefetch.of(task.hazelcastInstance);
+            prefetch.fetched(task.userName, docName, document != null);
+            String followingDocName = findFollowingFavorite(task, docName);
+            if (followingDocName != null && !followingDocName.equals(docName))
+                prefetch.prefetch(task.userName, followingDocName);
+
+            if (document != null)
+                return CompletableFuture.completedFuture(includeDocument ? document : null);
+            return TaskReplies.of(task.hazelcastInstance)
+                    .fetch(COLD_FETCH_EXECUTOR, task.userName, docName, includeDocument);
+        });
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.NEXT_FAVORITE_TASK;
+    }
+}
@@ -0,0 +1,39 @@
+package hazel.command;
+
+import com.hazelcast.map.IMap;
+import common.CommandResult;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
+import hazel.processor.RemoveFromFavesProcessor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static common.Constants.FAVE_DOCS_MAP;
+
+/**
+ * Remove the last viewed document from favourites of the user.
+ * Returns false if it was not a favourite.
+ */
+public class RemoveFavoriteTask extends UserCommandTask<Boolean> {
+
+    public RemoveFavoriteTask() {
+    }
+
+    public RemoveFavoriteTask(String userName) {
+        super(userName);
+    }
+
+    @Override
+    protected CompletionStage<CommandResult<Boolean>> execute(String lastDocName) {
+        IMap<UserKey, Favourites> faveMap = hazelcastInstance.getMap(FAVE_DOCS_MAP);
+        boolean success = faveMap.executeOnKey(new UserKey(userName), new RemoveFromFavesProcessor(userName, lastDocName));
+        return CompletableFuture.completedFuture(new CommandResult<>(lastDocName, success));
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.REMOVE_FAVORITE_TASK;
+    }
+}
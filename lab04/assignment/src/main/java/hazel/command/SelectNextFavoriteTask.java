@@ -0,0 +1,37 @@
+package hazel.command;
+
+import common.CommandResult;
+import hazel.DocSerializableFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Same as NextFavoriteTask, but does not return the document itself - for clients which read it from their near cache.
+ * Returns result with the next document's name and true,
+ * or with the last viewed document's name and false if the user has no favourites.
+ */
+public class SelectNextFavoriteTask extends UserCommandTask<Boolean> {
+
+    public SelectNextFavoriteTask() {
+    }
+
+    public SelectNextFavoriteTask(String userName) {
+        super(userName);
+    }
+
+    @Override
+    protected CompletionStage<CommandResult<Boolean>> execute(String lastDocName) {
+        String nextDocName = NextFavoriteTask.findNextFavorite(this, lastDocName);
+        if (nextDocName == null)
+            return CompletableFuture.completedFuture(new CommandResult<>(lastDocName, false));
+
+        return NextFavoriteTask.fetch(this, nextDocName, false)
+                .thenApply(ignored -> new CommandResult<>(nextDocName, true));
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.SELECT_NEXT_FAVORITE_TASK;
+    }
+}
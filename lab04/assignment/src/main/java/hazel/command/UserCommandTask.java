@@ -0,0 +1,103 @@
+package hazel.command;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import common.CommandResult;
+import common.UserKey;
+import hazel.DocSerializableFactory;
+import hazel.TaskReplies;
+import hazel.processor.GetUserLastViewedProcessor;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static common.Constants.LAST_DOCS_MAP;
+
+/**
+ * Base of the interactive user commands which are executed in the cluster instead of on the client.
+ * Should be submitted to the owner of the user key (on USER_COMMAND_EXECUTOR), where the last viewed document
+ * of the user is resolved locally and the command is then run on it, so that each command costs the client
+ * only a single round trip.
+ * Returns result without document name if the user hasn't viewed any document yet.
+ * <p>
+ * Commands never wait inside the task for anything but local processors. A command which has to wait longer
+ * (e.g., for the generation of a fetched document) returns null and replies once done (see TaskReplies),
+ * so that no thread of the executor is parked meanwhile.
+ */
+public abstract class UserCommandTask<R> implements Callable<CommandResult<R>>, IdentifiedDataSerializable, HazelcastInstanceAware {
+
+    protected String userName;
+    // Reply key of the client (see TaskReplies), null if the command doesn't reply
+    private String replyTo;
+
+    protected transient HazelcastInstance hazelcastInstance;
+
+    protected UserCommandTask() {
+    }
+
+    protected UserCommandTask(String userName) {
+        this.userName = userName;
+    }
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcastInstance) {
+        this.hazelcastInstance = hazelcastInstance;
+    }
+
+    /**
+     * Make the command reply to given reply key of TaskReplies if it isn't done at once.
+     */
+    public UserCommandTask<R> replyingTo(String replyKey) {
+        this.replyTo = replyKey;
+        return this;
+    }
+
+    @Override
+    public CommandResult<R> call() throws Exception {
+        // user key is owned by this member, so this is a local operation
+        IMap<UserKey, String> lastDocMap = hazelcastInstance.getMap(LAST_DOCS_MAP);
+        String lastDocName = lastDocMap.executeOnKey(new UserKey(userName), new GetUserLastViewedProcessor(userName));
+        if (lastDocName == null)
+            return new CommandResult<>(null, null);
+
+        CompletableFuture<CommandResult<R>> result = execute(lastDocName).toCompletableFuture();
+        if (replyTo == null || result.isDone())
+            return result.get();
+
+        TaskReplies.replyWhenComplete(hazelcastInstance, replyTo, result);
+        return null;
+    }
+
+    /**
+     * Run the command on the last viewed document of the user, completing once it is done.
+     */
+    protected abstract CompletionStage<CommandResult<R>> execute(String lastDocName);
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(userName);
+        out.writeString(replyTo);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        userName = in.readString();
+        replyTo = in.readString();
+    }
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s(client %s)", getClass().getSimpleName(), userName);
+    }
+}
@@ -1,42 +1,72 @@
 package hazel.processor;
 
-import com.hazelcast.map.EntryProcessor;
-import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
 import common.Comment;
+import common.DocKey;
+import hazel.DocSerializableFactory;
+import hazel.DocumentUpdates;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 
-public class AddCommentProcessor implements EntryProcessor<String, List<Comment>, Boolean> {
+/**
+ * Second step of adding a comment (see hazel.CommentLog) - the comment is already appended to the log at given index,
+ * this moves the head of the log (comment count in DocCommentCounts) past it and announces the comment to followers.
+ * Heads of concurrent appends may arrive in any order, the head only ever moves forward.
+ */
+public class AddCommentProcessor extends MutatingProcessor<DocKey, Integer, Boolean> {
 
-    private Comment comment;
     private String docName;
+    private Comment comment;
+    private int index;
 
-    public AddCommentProcessor(String docName, Comment comment) {
+    public AddCommentProcessor() {
+    }
+
+    public AddCommentProcessor(String docName, Comment comment, int index) {
         this.docName = docName;
         this.comment = comment;
+        this.index = index;
     }
 
     @Override
-    public Boolean process(Map.Entry<String, List<Comment>> entry) {
-        if (!Objects.equals(docName, entry.getKey()))
+    protected Boolean processEntry(Map.Entry<DocKey, Integer> entry) {
+        if (!Objects.equals(docName, entry.getKey().getName()))
             return false;
 
-        List<Comment> comments;
+        int count;
         if (entry.getValue() == null)
-            comments = new ArrayList<>();
+            count = 0;
         else
-            comments = entry.getValue();
+            count = entry.getValue();
 
-        comments.add(comment);
-        entry.setValue(comments);
+        if (index + 1 > count) {
+            entry.setValue(index + 1);
+            // Backups only move the head, the segment has a backup of its own
+            backupValue(index + 1);
+        }
+        DocumentUpdates.of(getHazelcastInstance()).commented(docName, comment, index + 1);
         return true;
     }
 
     @Override
-    public EntryProcessor<String, List<Comment>, Boolean> getBackupProcessor() {
-        return AddCommentProcessor.this;
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeObject(comment);
+        out.writeInt(index);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        comment = in.readObject();
+        index = in.readInt();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.ADD_COMMENT_PROCESSOR;
     }
 }
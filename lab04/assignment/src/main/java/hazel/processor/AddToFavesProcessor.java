@@ -1,45 +1,63 @@
 package hazel.processor;
 
-import com.hazelcast.map.EntryProcessor;
-import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 
-public class AddToFavesProcessor implements EntryProcessor<String, List<String>, Boolean> {
+public class AddToFavesProcessor extends MutatingProcessor<UserKey, Favourites, Boolean> {
 
     private String userName;
     private String docName;
 
+    public AddToFavesProcessor() {
+    }
+
     public AddToFavesProcessor(String userName, String docName) {
         this.userName = userName;
         this.docName = docName;
     }
 
     @Override
-    public Boolean process(Map.Entry<String, List<String>> entry) {
-        if (!Objects.equals(userName, entry.getKey()))
+    protected Boolean processEntry(Map.Entry<UserKey, Favourites> entry) {
+        if (!Objects.equals(userName, entry.getKey().getName()))
             return null;
 
-        List<String> favourites;
+        Favourites favourites;
         if (entry.getValue() == null)
-            favourites = new ArrayList<>();
+            favourites = new Favourites();
         else
             favourites = entry.getValue();
 
         // If it already is favourited, no update happens
-        if (favourites.contains(docName))
+        if (!favourites.add(docName))
             return false;
 
-        favourites.add(docName);
         entry.setValue(favourites);
+        // The document name already is the delta, adding it on backups is O(1)
+        backup(this);
         return true;
     }
 
     @Override
-    public EntryProcessor<String, List<String>, Boolean> getBackupProcessor() {
-        return AddToFavesProcessor.this;
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(userName);
+        out.writeString(docName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        userName = in.readString();
+        docName = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.ADD_TO_FAVES_PROCESSOR;
     }
 }
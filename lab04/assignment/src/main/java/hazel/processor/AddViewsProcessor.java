@@ -0,0 +1,85 @@
+package hazel.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.DocKey;
+import hazel.DocSerializableFactory;
+import hazel.DocumentUpdates;
+import hazel.TopViewedDocuments;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adds merged view count deltas to multiple documents at once (used with executeOnKeys).
+ * Returns the new view count of each document.
+ * Backups add the same deltas, but only the primary announces the new counts (TopViewedDocuments, DocumentUpdates).
+ */
+public class AddViewsProcessor extends MutatingProcessor<DocKey, Integer, Integer> {
+
+    // document name -> number of views to add
+    private Map<String, Integer> deltas;
+    // false for the copy applied on backups
+    private boolean primary;
+
+    public AddViewsProcessor() {
+    }
+
+    public AddViewsProcessor(Map<String, Integer> deltas) {
+        this(deltas, true);
+    }
+
+    private AddViewsProcessor(Map<String, Integer> deltas, boolean primary) {
+        this.deltas = deltas;
+        this.primary = primary;
+    }
+
+    @Override
+    protected Integer processEntry(Map.Entry<DocKey, Integer> entry) {
+        Integer delta = deltas.get(entry.getKey().getName());
+        if (delta == null)
+            return -1;
+
+        int oldCount;
+        if (entry.getValue() == null)
+            oldCount = 0;
+        else
+            oldCount = entry.getValue();
+
+        entry.setValue(oldCount + delta);
+        if (!primary)
+            return oldCount + delta;
+
+        // A single backup is sent for all the keys of a partition, so the backup has to carry all the deltas
+        backup(new AddViewsProcessor(deltas, false));
+        TopViewedDocuments.of(getHazelcastInstance()).viewed(entry.getKey(), oldCount + delta);
+        DocumentUpdates.of(getHazelcastInstance()).viewed(entry.getKey().getName(), oldCount + delta);
+
+        return oldCount + delta;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(deltas.size());
+        for (Map.Entry<String, Integer> delta : deltas.entrySet()) {
+            out.writeString(delta.getKey());
+            out.writeInt(delta.getValue());
+        }
+        out.writeBoolean(primary);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        int size = in.readInt();
+        deltas = new HashMap<>(size);
+        for (int i = 0; i < size; i++)
+            deltas.put(in.readString(), in.readInt());
+        primary = in.readBoolean();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.ADD_VIEWS_PROCESSOR;
+    }
+}
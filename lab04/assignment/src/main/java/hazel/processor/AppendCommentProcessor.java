@@ -0,0 +1,63 @@
+package hazel.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.Comment;
+import common.CommentSegment;
+import common.CommentSegmentKey;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static common.Constants.COMMENT_SEGMENT_SIZE;
+
+/**
+ * Appends a comment to a single segment of the comment log, creating the segment if needed (see hazel.CommentLog).
+ * Returns the position of the comment in the segment, or -1 if the segment is already full.
+ */
+public class AppendCommentProcessor extends MutatingProcessor<CommentSegmentKey, CommentSegment, Integer> {
+
+    private Comment comment;
+
+    public AppendCommentProcessor() {
+    }
+
+    public AppendCommentProcessor(Comment comment) {
+        this.comment = comment;
+    }
+
+    @Override
+    protected Integer processEntry(Map.Entry<CommentSegmentKey, CommentSegment> entry) {
+        CommentSegment segment;
+        if (entry.getValue() == null)
+            segment = new CommentSegment();
+        else
+            segment = entry.getValue();
+
+        int position = segment.getComments().size();
+        if (position >= COMMENT_SEGMENT_SIZE)
+            return -1;
+
+        segment.append(comment);
+        entry.setValue(segment);
+        // Only the appended comment is sent, not the whole segment
+        backup(this);
+        return position;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeObject(comment);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        comment = in.readObject();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.APPEND_COMMENT_PROCESSOR;
+    }
+}
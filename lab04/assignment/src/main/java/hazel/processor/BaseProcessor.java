@@ -0,0 +1,54 @@
+package hazel.processor;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.HazelcastInstanceAware;
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import hazel.DocSerializableFactory;
+import hazel.DocumentMetrics;
+
+import java.util.Map;
+
+/**
+ * Common base of all processors of this package.
+ * Every processor is either a ReadOnlyProcessor or a MutatingProcessor, which decides how it is locked and backed up.
+ * <p>
+ * Subclasses implement processEntry, the time it takes is recorded in DocumentMetrics of the member
+ * (backup processors included, they are listed under their own class).
+ */
+public abstract class BaseProcessor<K, V, R> implements EntryProcessor<K, V, R>, IdentifiedDataSerializable, HazelcastInstanceAware {
+
+    private transient HazelcastInstance hazelcast;
+
+    @Override
+    public void setHazelcastInstance(HazelcastInstance hazelcast) {
+        this.hazelcast = hazelcast;
+    }
+
+    @Override
+    public final R process(Map.Entry<K, V> entry) {
+        if (hazelcast == null)
+            return processEntry(entry);
+
+        long start = System.nanoTime();
+        try {
+            return processEntry(entry);
+        } finally {
+            DocumentMetrics.of(hazelcast).recordProcessor(getClass(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Member where the processor runs.
+     */
+    protected HazelcastInstance getHazelcastInstance() {
+        return hazelcast;
+    }
+
+    protected abstract R processEntry(Map.Entry<K, V> entry);
+
+    @Override
+    public int getFactoryId() {
+        return DocSerializableFactory.FACTORY_ID;
+    }
+}
@@ -0,0 +1,60 @@
+package hazel.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.DocKey;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Adds a follower of a document (or removes one, with a negative delta) to its follower count, see DocumentUpdates.
+ * The entry is removed once the document has no followers. Returns the new follower count, -1 if the key doesn't match.
+ */
+public class FollowProcessor extends MutatingProcessor<DocKey, Integer, Integer> {
+
+    private String docName;
+    private int delta;
+
+    public FollowProcessor() {
+    }
+
+    public FollowProcessor(String docName, int delta) {
+        this.docName = docName;
+        this.delta = delta;
+    }
+
+    @Override
+    protected Integer processEntry(Map.Entry<DocKey, Integer> entry) {
+        if (!Objects.equals(docName, entry.getKey().getName()))
+            return -1;
+
+        int oldCount = entry.getValue() == null ? 0 : entry.getValue();
+        int newCount = Math.max(oldCount + delta, 0);
+        if (newCount == oldCount)
+            return newCount;
+
+        entry.setValue(newCount == 0 ? null : newCount);
+        backupValue(newCount == 0 ? null : newCount);
+        return newCount;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeInt(delta);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        delta = in.readInt();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.FOLLOW_PROCESSOR;
+    }
+}
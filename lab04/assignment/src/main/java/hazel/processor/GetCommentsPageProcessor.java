@@ -0,0 +1,124 @@
+package hazel.processor;
+
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.*;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static common.Constants.COMMENT_SEGMENT_SIZE;
+import static common.Constants.DOC_COMMS_MAP;
+
+/**
+ * Reads a page of comments of a document - either the latest N comments, or N comments from given offset.
+ * Runs on the head of the comment log (DocCommentCounts) and reads only the co-located segments covering the page.
+ * Reading (and deserializing) the segments is offloaded from the partition thread, which only fetches the comment count.
+ * It has to be used with executeOnKey / submitToKey only - other ways of executing ignore offloading and the segments
+ * can't be fetched from the partition thread.
+ */
+public class GetCommentsPageProcessor extends ReadOnlyProcessor<DocKey, Integer, CommentPage> {
+
+    private String docName;
+    private int offset;
+    private int limit;
+    // If set, offset is ignored and the last `limit` comments are returned
+    private boolean latest;
+
+    public GetCommentsPageProcessor() {
+    }
+
+    private GetCommentsPageProcessor(String docName, int offset, int limit, boolean latest) {
+        this.docName = docName;
+        this.offset = offset;
+        this.limit = limit;
+        this.latest = latest;
+    }
+
+    /**
+     * Page with the latest `count` comments of the document.
+     */
+    public static GetCommentsPageProcessor latest(String docName, int count) {
+        return new GetCommentsPageProcessor(docName, 0, count, true);
+    }
+
+    /**
+     * Page with up to `limit` comments of the document, starting with comment number `offset`.
+     */
+    public static GetCommentsPageProcessor fromOffset(String docName, int offset, int limit) {
+        return new GetCommentsPageProcessor(docName, offset, limit, false);
+    }
+
+    @Override
+    public String getExecutorName() {
+        return offloadedExecutor();
+    }
+
+    @Override
+    protected CommentPage processEntry(Map.Entry<DocKey, Integer> entry) {
+        if (!Objects.equals(docName, entry.getKey().getName()))
+            return null;
+
+        int total;
+        if (entry.getValue() == null)
+            total = 0;
+        else
+            total = entry.getValue();
+
+        int start = latest ? Math.max(0, total - limit) : Math.min(Math.max(0, offset), total);
+        int end = Math.min(total, start + limit);
+
+        List<Comment> comments = new ArrayList<>(Math.max(0, end - start));
+        if (start >= end)
+            return new CommentPage(total, start, comments);
+
+        // All segments are in the same partition, so they are fetched by a single operation
+        Set<CommentSegmentKey> segmentKeys = new HashSet<>();
+        for (int index = start / COMMENT_SEGMENT_SIZE; index <= (end - 1) / COMMENT_SEGMENT_SIZE; index++)
+            segmentKeys.add(new CommentSegmentKey(docName, index));
+        IMap<CommentSegmentKey, CommentSegment> segmentMap = getHazelcastInstance().getMap(DOC_COMMS_MAP);
+        Map<CommentSegmentKey, CommentSegment> segments = segmentMap.getAll(segmentKeys);
+
+        for (int index = start / COMMENT_SEGMENT_SIZE; index <= (end - 1) / COMMENT_SEGMENT_SIZE; index++) {
+            CommentSegment segment = segments.get(new CommentSegmentKey(docName, index));
+            if (segment == null)
+                continue;
+
+            int segmentStart = index * COMMENT_SEGMENT_SIZE;
+            int from = Math.max(start - segmentStart, 0);
+            int to = Math.min(end - segmentStart, segment.getComments().size());
+            if (from < to)
+                comments.addAll(segment.getComments().subList(from, to));
+        }
+
+        return new CommentPage(total, start, comments);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+        out.writeInt(offset);
+        out.writeInt(limit);
+        out.writeBoolean(latest);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+        offset = in.readInt();
+        limit = in.readInt();
+        latest = in.readBoolean();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.GET_COMMENTS_PAGE_PROCESSOR;
+    }
+}
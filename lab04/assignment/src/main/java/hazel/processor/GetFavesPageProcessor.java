@@ -0,0 +1,63 @@
+package hazel.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Returns a page of up to `limit` favourite document names following the given one (from the first one if null).
+ * An empty or shorter page means there are no more favourites.
+ */
+public class GetFavesPageProcessor extends ReadOnlyProcessor<UserKey, Favourites, List<String>> {
+
+    private String userName;
+    private String after;
+    private int limit;
+
+    public GetFavesPageProcessor() {
+    }
+
+    public GetFavesPageProcessor(String userName, String after, int limit) {
+        this.userName = userName;
+        this.after = after;
+        this.limit = limit;
+    }
+
+    @Override
+    protected List<String> processEntry(Map.Entry<UserKey, Favourites> entry) {
+        if (!Objects.equals(userName, entry.getKey().getName()))
+            return null;
+
+        if (entry.getValue() == null)
+            return new ArrayList<>();
+
+        return entry.getValue().page(after, limit);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(userName);
+        out.writeString(after);
+        out.writeInt(limit);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        userName = in.readString();
+        after = in.readString();
+        limit = in.readInt();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.GET_FAVES_PAGE_PROCESSOR;
+    }
+}
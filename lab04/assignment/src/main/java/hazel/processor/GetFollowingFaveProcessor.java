@@ -0,0 +1,56 @@
+package hazel.processor;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Returns the name of the favourite following the provided document, without moving the cursor.
+ * Returns null if the document is not a favourite (or there are no favourites).
+ * Only the name leaves the partition, not the whole favourites.
+ */
+public class GetFollowingFaveProcessor extends ReadOnlyProcessor<UserKey, Favourites, String> {
+
+    private String userName;
+    private String docName;
+
+    public GetFollowingFaveProcessor() {
+    }
+
+    public GetFollowingFaveProcessor(String userName, String docName) {
+        this.userName = userName;
+        this.docName = docName;
+    }
+
+    @Override
+    protected String processEntry(Map.Entry<UserKey, Favourites> entry) {
+        if (!Objects.equals(userName, entry.getKey().getName()))
+            return null;
+
+        Favourites favourites = entry.getValue();
+        return favourites == null ? null : favourites.following(docName);
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(userName);
+        out.writeString(docName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        userName = in.readString();
+        docName = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.GET_FOLLOWING_FAVE_PROCESSOR;
+    }
+}
@@ -1,50 +1,65 @@
 package hazel.processor;
 
-import com.hazelcast.map.EntryProcessor;
-import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
 
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 
 /**
- * Tries to return the name of next document in list of favorites.
- * Return null if:
- * - list is not instantiated or empty (both meaning there's no favorites)
- * - provided last document is not a favorite (user can fix that by explicitly listing favourites and showing one)
- * Otherwise returns name of the next document in list of favourites.
+ * Tries to return the name of next document in list of favorites and moves the favourites' cursor to it.
+ * Return null if list is not instantiated or empty (both meaning there's no favorites).
+ * Otherwise returns name of the document following the provided last document if it is a favourite,
+ * or of the one following the cursor (the favourite shown last) if not.
  */
-public class GetNextFaveProcessor implements EntryProcessor<String, List<String>, String> {
+public class GetNextFaveProcessor extends MutatingProcessor<UserKey, Favourites, String> {
 
     private String userName;
     private String docName;
 
+    public GetNextFaveProcessor() {
+    }
+
     public GetNextFaveProcessor(String userName, String docName) {
         this.userName = userName;
         this.docName = docName;
     }
 
     @Override
-    public String process(Map.Entry<String, List<String>> entry) {
-        if (!Objects.equals(userName, entry.getKey()))
+    protected String processEntry(Map.Entry<UserKey, Favourites> entry) {
+        if (!Objects.equals(userName, entry.getKey().getName()))
             return null;
 
         if (entry.getValue() == null || entry.getValue().size() == 0)
             return null;
 
-        List<String> favourites = entry.getValue();
-        int lastIndex = favourites.indexOf(docName);
+        Favourites favourites = entry.getValue();
+        String nextDocName = favourites.advance(docName);
 
-        if (lastIndex == -1)
-            return null;
+        // Persist the moved cursor, backups only get the new cursor instead of repeating advance
+        entry.setValue(favourites);
+        backup(new SetFavesCursorProcessor<>(nextDocName));
+        return nextDocName;
+    }
 
-        int newIndex = (lastIndex + 1) % favourites.size();
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(userName);
+        out.writeString(docName);
+    }
 
-        return favourites.get(newIndex);
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        userName = in.readString();
+        docName = in.readString();
     }
 
     @Override
-    public EntryProcessor<String, List<String>, String> getBackupProcessor() {
-        return GetNextFaveProcessor.this;
+    public int getClassId() {
+        return DocSerializableFactory.GET_NEXT_FAVE_PROCESSOR;
     }
 }
@@ -1,28 +1,45 @@
 package hazel.processor;
 
-import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.UserKey;
+import hazel.DocSerializableFactory;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 
-public class GetUserLastViewedProcessor implements EntryProcessor<String, String, String> {
+public class GetUserLastViewedProcessor extends ReadOnlyProcessor<UserKey, String, String> {
 
     private String userName;
 
+    public GetUserLastViewedProcessor() {
+    }
+
     public GetUserLastViewedProcessor(String userName) {
         this.userName = userName;
     }
 
     @Override
-    public String process(Map.Entry<String, String> entry) {
-        if (!Objects.equals(userName, entry.getKey()))
+    protected String processEntry(Map.Entry<UserKey, String> entry) {
+        if (!Objects.equals(userName, entry.getKey().getName()))
             return null;
 
         return entry.getValue();
     }
 
     @Override
-    public EntryProcessor<String, String, String> getBackupProcessor() {
-        return GetUserLastViewedProcessor.this;
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(userName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        userName = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.GET_USER_LAST_VIEWED_PROCESSOR;
     }
 }
@@ -1,22 +1,32 @@
 package hazel.processor;
 
-import com.hazelcast.map.EntryProcessor;
-import common.Document;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.DocKey;
+import hazel.DocSerializableFactory;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 
-public class GetViewsProcessor implements EntryProcessor<String, Integer, Integer> {
+/**
+ * Returns the view count of the document.
+ * With write-combining of views enabled (see ViewCountCombiner), the count may lag behind by at most the flush interval.
+ */
+public class GetViewsProcessor extends ReadOnlyProcessor<DocKey, Integer, Integer> {
 
-    private final String docName;
+    private String docName;
+
+    public GetViewsProcessor() {
+    }
 
     public GetViewsProcessor(String docName) {
         this.docName = docName;
     }
 
     @Override
-    public Integer process(Map.Entry<String, Integer> entry) {
-        if (!Objects.equals(docName, entry.getKey()))
+    protected Integer processEntry(Map.Entry<DocKey, Integer> entry) {
+        if (!Objects.equals(docName, entry.getKey().getName()))
             return -1;
 
         int count;
@@ -29,7 +39,17 @@ public class GetViewsProcessor implements EntryProcessor<String, Integer, Intege
     }
 
     @Override
-    public EntryProcessor<String, Integer, Integer> getBackupProcessor() {
-        return GetViewsProcessor.this;
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.GET_VIEWS_PROCESSOR;
     }
 }
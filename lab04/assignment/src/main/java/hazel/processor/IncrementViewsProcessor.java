@@ -1,22 +1,30 @@
 package hazel.processor;
 
-import com.hazelcast.map.EntryProcessor;
-import common.Document;
-
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.DocKey;
+import hazel.DocSerializableFactory;
+import hazel.DocumentUpdates;
+import hazel.TopViewedDocuments;
+
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 
-public class IncrementViewsProcessor implements EntryProcessor<String, Integer, Boolean> {
+public class IncrementViewsProcessor extends MutatingProcessor<DocKey, Integer, Boolean> {
+
+    private String docName;
 
-    private final String docName;
+    public IncrementViewsProcessor() {
+    }
 
     public IncrementViewsProcessor(String docName) {
         this.docName = docName;
     }
 
     @Override
-    public Boolean process(Map.Entry<String, Integer> entry) {
-        if (!Objects.equals(docName, entry.getKey()))
+    protected Boolean processEntry(Map.Entry<DocKey, Integer> entry) {
+        if (!Objects.equals(docName, entry.getKey().getName()))
             return false;
 
         int oldCount;
@@ -26,12 +34,25 @@ public class IncrementViewsProcessor implements EntryProcessor<String, Integer,
             oldCount = entry.getValue();
 
         entry.setValue(oldCount + 1);
+        backupValue(oldCount + 1);
+        TopViewedDocuments.of(getHazelcastInstance()).viewed(entry.getKey(), oldCount + 1);
+        DocumentUpdates.of(getHazelcastInstance()).viewed(entry.getKey().getName(), oldCount + 1);
 
         return true;
     }
 
     @Override
-    public EntryProcessor<String, Integer, Boolean> getBackupProcessor() {
-        return IncrementViewsProcessor.this;
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.INCREMENT_VIEWS_PROCESSOR;
     }
 }
@@ -0,0 +1,36 @@
+package hazel.processor;
+
+import com.hazelcast.map.EntryProcessor;
+
+/**
+ * Base of processors which change the entry.
+ * Instead of replaying the whole processor on backups, processEntry() records a compact delta of what it changed
+ * with backup() or backupValue(), which is then the only thing sent to (and applied on) the backup replicas.
+ * If nothing is recorded, the entry didn't change and no backup is sent at all.
+ * <p>
+ * The recorded backup lives in the processor instance, so getBackupProcessor must be called after process
+ * on the same instance (as hazelcast does on the primary replica).
+ */
+public abstract class MutatingProcessor<K, V, R> extends BaseProcessor<K, V, R> {
+
+    private transient EntryProcessor<K, V, R> backup;
+
+    /**
+     * Apply the given processor on backups (typically this, if the processor itself already is the delta).
+     */
+    protected void backup(EntryProcessor<K, V, R> delta) {
+        backup = delta;
+    }
+
+    /**
+     * Only set the new value on backups.
+     */
+    protected void backupValue(V newValue) {
+        backup = new SetValueBackupProcessor<>(newValue);
+    }
+
+    @Override
+    public EntryProcessor<K, V, R> getBackupProcessor() {
+        return backup;
+    }
+}
@@ -0,0 +1,34 @@
+package hazel.processor;
+
+import com.hazelcast.core.Offloadable;
+import com.hazelcast.core.ReadOnly;
+import com.hazelcast.map.EntryProcessor;
+
+import static common.Constants.PROCESSOR_OFFLOAD_EXECUTOR;
+
+/**
+ * Base of processors which never change the entry.
+ * They don't wait for the lock of the key and are never sent to backups.
+ * <p>
+ * By default they run on the partition thread. Processors doing expensive work besides reading the entry
+ * (e.g. reading other co-located maps) should override getExecutorName with offloadedExecutor() - the partition
+ * thread then only fetches the entry and the processing runs in PROCESSOR_OFFLOAD_EXECUTOR.
+ * Offloading serializes the entry value (even with OBJECT in-memory format), so cheap processors are better off inline.
+ */
+public abstract class ReadOnlyProcessor<K, V, R> extends BaseProcessor<K, V, R> implements ReadOnly, Offloadable {
+
+    @Override
+    public final EntryProcessor<K, V, R> getBackupProcessor() {
+        // Only reads, there is nothing to back up
+        return null;
+    }
+
+    @Override
+    public String getExecutorName() {
+        return NO_OFFLOADING;
+    }
+
+    protected static String offloadedExecutor() {
+        return PROCESSOR_OFFLOAD_EXECUTOR;
+    }
+}
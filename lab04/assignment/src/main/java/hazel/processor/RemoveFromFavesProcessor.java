@@ -1,45 +1,61 @@
 package hazel.processor;
 
-import com.hazelcast.map.EntryProcessor;
-import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 
-public class RemoveFromFavesProcessor implements EntryProcessor<String, List<String>, Boolean> {
+public class RemoveFromFavesProcessor extends MutatingProcessor<UserKey, Favourites, Boolean> {
 
     private String userName;
     private String docName;
 
+    public RemoveFromFavesProcessor() {
+    }
+
     public RemoveFromFavesProcessor(String userName, String docName) {
         this.userName = userName;
         this.docName = docName;
     }
 
     @Override
-    public Boolean process(Map.Entry<String, List<String>> entry) {
-        if (!Objects.equals(userName, entry.getKey()))
+    protected Boolean processEntry(Map.Entry<UserKey, Favourites> entry) {
+        if (!Objects.equals(userName, entry.getKey().getName()))
             return null;
 
         if (entry.getValue() == null)
             return false;
 
-        List<String> favourites = entry.getValue();
-
-        int index = favourites.indexOf(docName);
+        Favourites favourites = entry.getValue();
 
-        if (index == -1)
+        if (!favourites.remove(docName))
             return false;
 
-        favourites.remove(docName);
         entry.setValue(favourites);
+        // The document name already is the delta, removing it on backups is O(1)
+        backup(this);
         return true;
     }
 
     @Override
-    public EntryProcessor<String, List<String>, Boolean> getBackupProcessor() {
-        return RemoveFromFavesProcessor.this;
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(userName);
+        out.writeString(docName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        userName = in.readString();
+        docName = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.REMOVE_FROM_FAVES_PROCESSOR;
     }
 }
@@ -0,0 +1,58 @@
+package hazel.processor;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.Favourites;
+import common.UserKey;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Backup of GetNextFaveProcessor, which only moves the cursor of the favourites to where it moved on the primary replica.
+ */
+public class SetFavesCursorProcessor<R> extends BaseProcessor<UserKey, Favourites, R> {
+
+    private String cursor;
+
+    public SetFavesCursorProcessor() {
+    }
+
+    public SetFavesCursorProcessor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    protected R processEntry(Map.Entry<UserKey, Favourites> entry) {
+        if (entry.getValue() == null)
+            return null;
+
+        Favourites favourites = entry.getValue();
+        favourites.setCursor(cursor);
+        entry.setValue(favourites);
+        return null;
+    }
+
+    @Override
+    public EntryProcessor<UserKey, Favourites, R> getBackupProcessor() {
+        // Runs only on backups
+        return null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(cursor);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        cursor = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.SET_FAVES_CURSOR_PROCESSOR;
+    }
+}
@@ -1,31 +1,51 @@
 package hazel.processor;
 
-import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.UserKey;
+import hazel.DocSerializableFactory;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Objects;
 
-public class SetUserLastViewedProcessor implements EntryProcessor<String, String, Boolean> {
+public class SetUserLastViewedProcessor extends MutatingProcessor<UserKey, String, Boolean> {
 
     private String userName;
     private String newDocName;
 
+    public SetUserLastViewedProcessor() {
+    }
+
     public SetUserLastViewedProcessor(String userName, String newDocName) {
         this.userName = userName;
         this.newDocName = newDocName;
     }
 
     @Override
-    public Boolean process(Map.Entry<String, String> entry) {
-        if (!Objects.equals(userName, entry.getKey()))
+    protected Boolean processEntry(Map.Entry<UserKey, String> entry) {
+        if (!Objects.equals(userName, entry.getKey().getName()))
             return false;
 
         entry.setValue(newDocName);
+        backupValue(newDocName);
         return true;
     }
 
     @Override
-    public EntryProcessor<String, String, Boolean> getBackupProcessor() {
-        return SetUserLastViewedProcessor.this;
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(userName);
+        out.writeString(newDocName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        userName = in.readString();
+        newDocName = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.SET_USER_LAST_VIEWED_PROCESSOR;
     }
 }
@@ -0,0 +1,52 @@
+package hazel.processor;
+
+import com.hazelcast.map.EntryProcessor;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import hazel.DocSerializableFactory;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Backup of a MutatingProcessor, which only sets the value computed on the primary replica.
+ * Used for small values (counts, names), where the new value is as compact as any delta and applying it is idempotent.
+ */
+public class SetValueBackupProcessor<K, V, R> extends BaseProcessor<K, V, R> {
+
+    private V value;
+
+    public SetValueBackupProcessor() {
+    }
+
+    public SetValueBackupProcessor(V value) {
+        this.value = value;
+    }
+
+    @Override
+    protected R processEntry(Map.Entry<K, V> entry) {
+        entry.setValue(value);
+        return null;
+    }
+
+    @Override
+    public EntryProcessor<K, V, R> getBackupProcessor() {
+        // Runs only on backups
+        return null;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeObject(value);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        value = in.readObject();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.SET_VALUE_BACKUP_PROCESSOR;
+    }
+}
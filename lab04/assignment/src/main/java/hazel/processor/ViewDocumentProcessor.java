@@ -0,0 +1,74 @@
+package hazel.processor;
+
+import com.hazelcast.map.IMap;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import common.DocKey;
+import common.Document;
+import hazel.DocSerializableFactory;
+import hazel.DocumentUpdates;
+import hazel.TopViewedDocuments;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+import static common.Constants.DOC_CACHE_MAP;
+
+/**
+ * Reads the cached document and increments its view count in a single execution on the partition thread.
+ * DocumentCache and DocViewCounts are both keyed by DocKey, so the document lives in the same partition
+ * and is read locally without any further hop.
+ * Returns null (and does not count the view) if the document is not cached yet.
+ */
+public class ViewDocumentProcessor extends MutatingProcessor<DocKey, Integer, Document> {
+
+    private String docName;
+
+    public ViewDocumentProcessor() {
+    }
+
+    public ViewDocumentProcessor(String docName) {
+        this.docName = docName;
+    }
+
+    @Override
+    protected Document processEntry(Map.Entry<DocKey, Integer> entry) {
+        if (!Objects.equals(docName, entry.getKey().getName()))
+            return null;
+
+        IMap<DocKey, Document> docMap = getHazelcastInstance().getMap(DOC_CACHE_MAP);
+        Document document = docMap.get(entry.getKey());
+        if (document == null)
+            return null;
+
+        int oldCount;
+        if (entry.getValue() == null)
+            oldCount = 0;
+        else
+            oldCount = entry.getValue();
+
+        entry.setValue(oldCount + 1);
+        // The backup only needs the new count, not the document (and is sent only when the view was really counted)
+        backupValue(oldCount + 1);
+        TopViewedDocuments.of(getHazelcastInstance()).viewed(entry.getKey(), oldCount + 1);
+        DocumentUpdates.of(getHazelcastInstance()).viewed(entry.getKey().getName(), oldCount + 1);
+
+        return document;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeString(docName);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        docName = in.readString();
+    }
+
+    @Override
+    public int getClassId() {
+        return DocSerializableFactory.VIEW_DOCUMENT_PROCESSOR;
+    }
+}
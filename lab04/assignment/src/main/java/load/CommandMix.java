@@ -0,0 +1,55 @@
+package load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted mix of client commands (the same letters as in the interactive Client), e.g. "s=40,i=20,c=5,a=10,r=5,n=15,l=5".
+ */
+public class CommandMix {
+
+    public static final String COMMANDS = "sicarnl";
+
+    private final Map<Character, Integer> weights = new LinkedHashMap<>();
+    private final int totalWeight;
+
+    public CommandMix(String mix) {
+        int total = 0;
+        for (String part : mix.split(",")) {
+            String[] commandWeight = part.trim().split("=");
+            if (commandWeight.length != 2 || commandWeight[0].length() != 1 || COMMANDS.indexOf(commandWeight[0].charAt(0)) < 0)
+                throw new IllegalArgumentException("Invalid command weight '" + part + "', expected <command>=<weight> with command one of " + COMMANDS);
+
+            int weight = Integer.parseInt(commandWeight[1]);
+            if (weight < 0)
+                throw new IllegalArgumentException("Negative weight of command " + commandWeight[0]);
+            weights.merge(commandWeight[0].charAt(0), weight, Integer::sum);
+            total += weight;
+        }
+        if (total == 0)
+            throw new IllegalArgumentException("Command mix has no commands");
+        totalWeight = total;
+    }
+
+    public char next(Random random) {
+        int point = random.nextInt(totalWeight);
+        for (Map.Entry<Character, Integer> weight : weights.entrySet()) {
+            point -= weight.getValue();
+            if (point < 0)
+                return weight.getKey();
+        }
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder mix = new StringBuilder();
+        for (Map.Entry<Character, Integer> weight : weights.entrySet()) {
+            if (mix.length() > 0)
+                mix.append(',');
+            mix.append(weight.getKey()).append('=').append(weight.getValue());
+        }
+        return mix.toString();
+    }
+}
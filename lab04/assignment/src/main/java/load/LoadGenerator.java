@@ -0,0 +1,182 @@
+package load;
+
+import com.hazelcast.client.HazelcastClient;
+import com.hazelcast.client.config.ClientConfig;
+import com.hazelcast.config.FileSystemYamlConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import common.WarmUpResult;
+import hazel.AsyncDocClient;
+import hazel.DocSerializableFactory;
+import hazel.DocumentWarmUp;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless replacement of the interactive Client loop - many simulated users (see SimulatedUser) sharing a single
+ * hazelcast client run a mix of client commands against the cluster for a given time, then the latency percentiles
+ * and throughput of every command are printed and optionally written as a JSON report.
+ * <p>
+ * Documents are named doc0 .. doc{n-1} and picked by a Zipfian distribution, doc0 being the most popular one.
+ * They are all warmed up before the run, so the results are not dominated by document generation.
+ */
+public class LoadGenerator {
+
+    private static final String USAGE = "Usage: bash run-load.sh [--users <n>] [--duration <seconds>] [--mix <s=40,i=20,...>] " +
+            "[--docs <n>] [--zipf <exponent>] [--think-ms <millis>] [--embedded <members>] [--report <file.json>] [--no-warm-up]";
+
+    // Every user runs one command at a time, info reads two maps in parallel
+    private static final int USER_MAX_IN_FLIGHT = 2;
+    private static final int SCHEDULER_THREADS = 4;
+
+    static class Settings {
+        int users = 1000;
+        int durationSeconds = 60;
+        CommandMix mix = new CommandMix("s=40,i=20,c=5,a=10,r=5,n=15,l=5");
+        int documents = 1000;
+        double zipfExponent = 1.0;
+        // Mean think time between two commands of a user
+        long thinkMillis = 1000;
+        // Number of members to start in this process, 0 to connect to a running cluster
+        int embeddedMembers = 0;
+        Path report;
+        boolean warmUp = true;
+    }
+
+    private final Settings settings;
+    private final PrintStream out;
+
+    LoadGenerator(Settings settings, PrintStream out) {
+        this.settings = settings;
+        this.out = out;
+    }
+
+    void run() throws Exception {
+        List<HazelcastInstance> members = new ArrayList<>();
+        for (int i = 0; i < settings.embeddedMembers; i++)
+            members.add(Hazelcast.newHazelcastInstance(new FileSystemYamlConfig("hazelcast.yaml")));
+
+        ClientConfig config = new ClientConfig();
+        config.getSerializationConfig()
+                .addDataSerializableFactory(DocSerializableFactory.FACTORY_ID, new DocSerializableFactory());
+        HazelcastInstance hazelcast = HazelcastClient.newHazelcastClient(config);
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(SCHEDULER_THREADS);
+        try {
+            if (settings.warmUp)
+                warmUp(hazelcast);
+
+            out.printf("Running %d users for %d s, mix %s, think time %d ms...%n",
+                    settings.users, settings.durationSeconds, settings.mix, settings.thinkMillis);
+            ZipfDistribution popularity = new ZipfDistribution(settings.documents, settings.zipfExponent);
+            LoadReport report = new LoadReport();
+            CountDownLatch finished = new CountDownLatch(settings.users);
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+            for (int i = 0; i < settings.users; i++) {
+                AsyncDocClient client = new AsyncDocClient(hazelcast, "load" + i, false, USER_MAX_IN_FLIGHT);
+                new SimulatedUser(client, settings, popularity, report, scheduler, finished, deadline).start();
+            }
+            finished.await();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            report.print(out, seconds);
+            if (settings.report != null) {
+                report.writeJson(settings.report, settings, seconds);
+                out.printf("Report written to %s.%n", settings.report);
+            }
+        } finally {
+            scheduler.shutdownNow();
+            hazelcast.shutdown();
+            for (HazelcastInstance member : members)
+                member.shutdown();
+        }
+    }
+
+    private void warmUp(HazelcastInstance hazelcast) throws Exception {
+        Set<String> docNames = new LinkedHashSet<>();
+        for (int i = 0; i < settings.documents; i++)
+            docNames.add("doc" + i);
+
+        out.printf("Warming up %d documents...%n", docNames.size());
+        WarmUpResult result = DocumentWarmUp.warmUp(hazelcast, docNames, progress -> {})
+                .toCompletableFuture().get();
+        out.printf("Warmed up %s.%n", result);
+    }
+
+    private static Settings parseSettings(String[] args) {
+        Settings settings = new Settings();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--no-warm-up")) {
+                settings.warmUp = false;
+                continue;
+            }
+            if (i + 1 == args.length)
+                throw new IllegalArgumentException("Missing value of " + option);
+            String value = args[++i];
+            switch (option) {
+                case "--users":
+                    settings.users = positive(option, Integer.parseInt(value));
+                    break;
+                case "--duration":
+                    settings.durationSeconds = positive(option, Integer.parseInt(value));
+                    break;
+                case "--mix":
+                    settings.mix = new CommandMix(value);
+                    break;
+                case "--docs":
+                    settings.documents = positive(option, Integer.parseInt(value));
+                    break;
+                case "--zipf":
+                    settings.zipfExponent = Double.parseDouble(value);
+                    break;
+                case "--think-ms":
+                    settings.thinkMillis = Long.parseLong(value);
+                    if (settings.thinkMillis < 0)
+                        throw new IllegalArgumentException("Negative think time");
+                    break;
+                case "--embedded":
+                    settings.embeddedMembers = positive(option, Integer.parseInt(value));
+                    break;
+                case "--report":
+                    settings.report = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        return settings;
+    }
+
+    private static int positive(String option, int value) {
+        if (value <= 0)
+            throw new IllegalArgumentException(option + " must be positive");
+        return value;
+    }
+
+    public static void main(String[] args) {
+        Settings settings;
+        try {
+            settings = parseSettings(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return;
+        }
+
+        try {
+            new LoadGenerator(settings, System.out).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package load;
+
+import common.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and errors of all commands run by the load generator, printed as a table and written as a JSON report.
+ */
+class LoadReport {
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private static class CommandStats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+    }
+
+    private final Map<Character, CommandStats> commands = new TreeMap<>();
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LongAdder totalErrors = new LongAdder();
+
+    LoadReport() {
+        for (char command : CommandMix.COMMANDS.toCharArray())
+            commands.put(command, new CommandStats());
+    }
+
+    void record(char command, long latencyNanos, boolean success) {
+        CommandStats stats = commands.get(command);
+        stats.latency.record(latencyNanos);
+        total.record(latencyNanos);
+        if (!success) {
+            stats.errors.increment();
+            totalErrors.increment();
+        }
+    }
+
+    void print(PrintStream out, double seconds) {
+        out.printf("%-8s %10s %10s %8s %10s %10s %10s %10s %10s%n",
+                "command", "count", "ops/s", "errors", "mean ms", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<Character, CommandStats> command : commands.entrySet())
+            if (command.getValue().latency.getCount() > 0)
+                printRow(out, String.valueOf(command.getKey()), command.getValue().latency, command.getValue().errors.sum(), seconds);
+        printRow(out, "all", total, totalErrors.sum(), seconds);
+    }
+
+    private static void printRow(PrintStream out, String name, LatencyHistogram latency, long errors, double seconds) {
+        out.printf(Locale.ROOT, "%-8s %10d %10.1f %8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                name, latency.getCount(), latency.getCount() / seconds, errors, latency.getMean() / 1e6,
+                latency.getPercentile(0.5) / 1e6, latency.getPercentile(0.99) / 1e6, latency.getPercentile(0.999) / 1e6,
+                latency.getMax() / 1e6);
+    }
+
+    /**
+     * Write the report as JSON, all latencies are in milliseconds.
+     */
+    void writeJson(Path file, LoadGenerator.Settings settings, double seconds) throws IOException {
+        try (Writer json = Files.newBufferedWriter(file)) {
+            json.write("{\n");
+            json.write(String.format(Locale.ROOT,
+                    "  \"settings\": {\"users\": %d, \"durationSeconds\": %d, \"documents\": %d, \"zipfExponent\": %s, " +
+                    "\"thinkMillis\": %d, \"mix\": \"%s\", \"embeddedMembers\": %d},%n",
+                    settings.users, settings.durationSeconds, settings.documents, settings.zipfExponent,
+                    settings.thinkMillis, settings.mix, settings.embeddedMembers));
+            json.write(String.format(Locale.ROOT, "  \"elapsedSeconds\": %.3f,%n", seconds));
+            json.write("  \"commands\": {\n");
+            boolean first = true;
+            for (Map.Entry<Character, CommandStats> command : commands.entrySet()) {
+                if (command.getValue().latency.getCount() == 0)
+                    continue;
+                if (!first)
+                    json.write(",\n");
+                first = false;
+                json.write("    \"" + command.getKey() + "\": " + jsonStats(command.getValue().latency, command.getValue().errors.sum(), seconds));
+            }
+            json.write("\n  },\n");
+            json.write("  \"total\": " + jsonStats(total, totalErrors.sum(), seconds) + "\n");
+            json.write("}\n");
+        }
+    }
+
+    private static String jsonStats(LatencyHistogram latency, long errors, double seconds) {
+        StringBuilder stats = new StringBuilder();
+        stats.append(String.format(Locale.ROOT, "{\"count\": %d, \"errors\": %d, \"throughput\": %.3f, \"meanMillis\": %.3f, ",
+                latency.getCount(), errors, latency.getCount() / seconds, latency.getMean() / 1e6));
+        for (double percentile : PERCENTILES)
+            stats.append(String.format(Locale.ROOT, "\"p%s\": %.3f, ",
+                    String.valueOf(percentile * 100).replace(".0", "").replace(".", ""), latency.getPercentile(percentile) / 1e6));
+        stats.append(String.format(Locale.ROOT, "\"maxMillis\": %.3f}", latency.getMax() / 1e6));
+        return stats.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package load;
+
+import common.CommandResult;
+import hazel.AsyncDocClient;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single user of the load generator running in a closed loop - think, run a command, wait for its result, repeat.
+ * Users don't have threads of their own, every step is scheduled in the shared scheduler
+ * and continues from the completion of the command, so thousands of users need only a few threads.
+ * The first command of every user selects a document, so that the other commands have a document to work with.
+ */
+class SimulatedUser {
+
+    private static final int INFO_COMMENT_COUNT = 10;
+    private static final int FAVORITES_PAGE_SIZE = 100;
+
+    private final AsyncDocClient client;
+    private final LoadGenerator.Settings settings;
+    private final ZipfDistribution popularity;
+    private final LoadReport report;
+    private final ScheduledExecutorService scheduler;
+    // Counted down when the user stops after the deadline
+    private final CountDownLatch finished;
+    private final long deadlineNanos;
+
+    private boolean selected;
+
+    SimulatedUser(AsyncDocClient client, LoadGenerator.Settings settings, ZipfDistribution popularity, LoadReport report,
+                  ScheduledExecutorService scheduler, CountDownLatch finished, long deadlineNanos) {
+        this.client = client;
+        this.settings = settings;
+        this.popularity = popularity;
+        this.report = report;
+        this.scheduler = scheduler;
+        this.finished = finished;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Start the loop, users start at random moments within a think time so they don't all start at once.
+     */
+    void start() {
+        scheduler.schedule(this::runCommand, ThreadLocalRandom.current().nextLong(settings.thinkMillis + 1), TimeUnit.MILLISECONDS);
+    }
+
+    private void runCommand() {
+        if (System.nanoTime() >= deadlineNanos) {
+            finished.countDown();
+            return;
+        }
+
+        char command = selected ? settings.mix.next(ThreadLocalRandom.current()) : 's';
+        selected = true;
+
+        long start = System.nanoTime();
+        CompletionStage<Boolean> result;
+        try {
+            result = execute(command);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((success, error) -> {
+            report.record(command, System.nanoTime() - start, error == null && Boolean.TRUE.equals(success));
+            scheduler.schedule(this::runCommand, thinkTime(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Run the command, the result is whether it did what the interactive client expects it to do.
+     */
+    private CompletionStage<Boolean> execute(char command) {
+        switch (command) {
+            case 's':
+                String docName = "doc" + popularity.sample(ThreadLocalRandom.current());
+                return client.fetchDocument(docName).thenApply(Objects::nonNull);
+            case 'i':
+                return client.info(INFO_COMMENT_COUNT).thenApply(result -> hasDocument(result) && result.getValue() != null);
+            case 'c':
+                return client.comment("Comment by " + client.getUserName()).thenApply(result -> hasDocument(result) && Boolean.TRUE.equals(result.getValue()));
+            case 'a':
+                return client.addFavorite().thenApply(SimulatedUser::hasDocument);
+            case 'r':
+                return client.removeFavorite().thenApply(SimulatedUser::hasDocument);
+            case 'n':
+                return client.nextFavorite().thenApply(SimulatedUser::hasDocument);
+            case 'l':
+                return listFavorites(null);
+            default:
+                throw new IllegalArgumentException("Unknown command " + command);
+        }
+    }
+
+    private CompletionStage<Boolean> listFavorites(String after) {
+        return client.favoritesPage(after, FAVORITES_PAGE_SIZE).thenCompose(page -> {
+            if (page.size() < FAVORITES_PAGE_SIZE)
+                return CompletableFuture.completedFuture(true);
+            return listFavorites(page.get(page.size() - 1));
+        });
+    }
+
+    private static boolean hasDocument(CommandResult<?> result) {
+        return result != null && result.getDocName() != null;
+    }
+
+    /**
+     * Exponentially distributed think time with the configured mean.
+     */
+    private long thinkTime() {
+        if (settings.thinkMillis == 0)
+            return 0;
+        return (long) (-settings.thinkMillis * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+    }
+}
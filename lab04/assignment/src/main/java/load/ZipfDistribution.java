@@ -0,0 +1,29 @@
+package load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipfian distribution over ranks 0 .. n-1 - rank k is chosen with probability proportional to 1 / (k + 1)^exponent,
+ * so a few documents get most of the views (exponent around 1 is typical for web content).
+ */
+public class ZipfDistribution {
+
+    // cumulative[k] = sum of the weights of ranks 0 .. k
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        cumulative = new double[n];
+        double total = 0;
+        for (int rank = 0; rank < n; rank++) {
+            total += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+    }
+
+    public int sample(Random random) {
+        double point = random.nextDouble() * cumulative[cumulative.length - 1];
+        int index = Arrays.binarySearch(cumulative, point);
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+}